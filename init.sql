@@ -14,10 +14,14 @@ CREATE TABLE IF NOT EXISTS users (
     CREATED_AT TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP,
     UPDATED_AT TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP,
     VERSION BIGINT DEFAULT 1,
+    TOKEN_EPOCH INTEGER DEFAULT 0 NOT NULL,
     PRIMARY KEY (ID),
     CONSTRAINT PHONE_NUMBER_FORMAT CHECK (PHONE_NUMBER ~ '^\+\d{1,14}$')
 );
 
+CREATE INDEX IF NOT EXISTS users_token_epoch_updated_at_idx
+    ON users (UPDATED_AT) WHERE TOKEN_EPOCH > 0;
+
 CREATE TABLE IF NOT EXISTS refresh_tokens (
     ID BIGINT GENERATED BY DEFAULT AS IDENTITY,
     EXPIRATION TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP,
@@ -26,6 +30,9 @@ CREATE TABLE IF NOT EXISTS refresh_tokens (
     PRIMARY KEY (ID)
 );
 
+CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_user_id_idx
+    ON refresh_tokens (USER_ID);
+
 insert into users (firstname, surname, patronymic,
 email, username, phone_number, birth_date, password)
 values
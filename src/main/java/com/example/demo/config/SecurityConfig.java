@@ -1,8 +1,13 @@
 package com.example.demo.config;
 
 import com.example.demo.filter.JwtAuthenticationFilter;
+import com.example.demo.services.auth.BCryptDelegatingPasswordEncoder;
+import com.example.demo.services.auth.BoundedPasswordEncoder;
+import com.example.demo.services.auth.CalibratedBCryptPasswordEncoder;
 import com.example.demo.services.user.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,13 +17,16 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
@@ -30,6 +38,10 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
+    private static final String PBKDF2_ID = "pbkdf2@SpringSecurity_v5_8";
+
     private final UserService userService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -49,14 +61,17 @@ public class SecurityConfig {
     /**
      * Конфигурация цепочки фильтров безопасности.
      *
-     * @param http объект HttpSecurity, используемый для настройки
-     *             безопасности веб-приложения
+     * @param http                   объект HttpSecurity, используемый для настройки
+     *                               безопасности веб-приложения
+     * @param authenticationProvider провайдер проверки логина и пароля
      * @return объект SecurityFilterChain, который настраивает безопасность
      * для различных URL-путей
      * @throws Exception в случае ошибок конфигурации безопасности
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AuthenticationProvider authenticationProvider)
+            throws Exception {
         http
                 .authorizeHttpRequests(
                         authorize -> authorize
@@ -65,6 +80,7 @@ public class SecurityConfig {
                                 .requestMatchers("/api/v2/auth/**").permitAll()
                                 .requestMatchers("/api/v1/test/anybody").permitAll()
                                 .requestMatchers("/api/v2/refresh/*").permitAll()
+                                .requestMatchers("/.well-known/jwks.json").permitAll()
                                 .anyRequest().authenticated())
                 .cors(cors -> cors.configurationSource(request -> {
                     var corsConfiguration = new CorsConfiguration();
@@ -76,7 +92,7 @@ public class SecurityConfig {
                     return corsConfiguration;
                 }))
                 .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS))
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthenticationFilter,
                         UsernamePasswordAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable);
@@ -87,22 +103,57 @@ public class SecurityConfig {
      * Создает бин UserDetailsService, который предоставляет
      * информацию о пользователе на основе логина / имени пользователя.
      *
-     * @return UserDetailsService, который использует метод getUserByUsername
-     * из userService для получения данных пользователя.
+     * @return UserDetailsService из userService, возвращающий неизменяемый
+     * {@link com.example.demo.models.user.UserPrincipal}.
      */
     @Bean
     UserDetailsService userDetailsService() {
-        return userService::getUserByUsername;
+        return userService.userDetailsService();
     }
 
     /**
-     * Создает бин BCryptPasswordEncoder для кодирования паролей пользователей.
+     * Создает бин PasswordEncoder для кодирования паролей пользователей.
+     * <p>
+     * Новые пароли хешируются BCrypt со стоимостью {@code PASSWORD_HASH_COST}
+     * или, если она не задана, подобранной при запуске под целевое время
+     * {@code PASSWORD_HASH_TARGET_TIME}. Хеши хранятся с префиксом алгоритма
+     * ({@code {bcrypt}...}); хеши без префикса (например, из {@code init.sql})
+     * проверяются как BCrypt. Хеши другой стоимости или алгоритма пересчитываются
+     * при успешном входе, см. {@link #authenticationProvider}.
+     * </p>
+     * <p>
+     * Хеширование выполняется в отдельном ограниченном пуле потоков, чтобы
+     * всплеск входов не занимал все потоки обработки запросов.
+     * </p>
      *
-     * @return BCryptPasswordEncoder, используемый для безопасного хранения паролей.
+     * @param cost          стоимость BCrypt, 0 — подобрать при запуске
+     * @param targetTime    целевое время хеширования, мс
+     * @param minCost       минимальная стоимость при подборе
+     * @param maxCost       максимальная стоимость при подборе
+     * @param threads       число потоков хеширования, 0 — по числу ядер
+     * @param queueSize     размер очереди ожидающих операций
+     * @param retryAfter    значение Retry-After при переполнении, секунды
+     * @param meterRegistry реестр метрик
+     * @return PasswordEncoder, используемый для безопасного хранения паролей.
      */
     @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(@Value("${PASSWORD_HASH_COST:0}") int cost,
+                                    @Value("${PASSWORD_HASH_TARGET_TIME:250}") long targetTime,
+                                    @Value("${PASSWORD_HASH_MIN_COST:10}") int minCost,
+                                    @Value("${PASSWORD_HASH_MAX_COST:14}") int maxCost,
+                                    @Value("${PASSWORD_HASHING_THREADS:0}") int threads,
+                                    @Value("${PASSWORD_HASHING_QUEUE_SIZE:100}") int queueSize,
+                                    @Value("${PASSWORD_HASHING_RETRY_AFTER:1}") long retryAfter,
+                                    MeterRegistry meterRegistry) {
+        CalibratedBCryptPasswordEncoder bcrypt = cost > 0
+                ? new CalibratedBCryptPasswordEncoder(cost)
+                : CalibratedBCryptPasswordEncoder.calibrate(targetTime, minCost, maxCost);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT_ID, bcrypt,
+                PBKDF2_ID, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        PasswordEncoder delegating = new BCryptDelegatingPasswordEncoder(BCRYPT_ID, encoders, bcrypt);
+        return new BoundedPasswordEncoder(delegating,
+                threads, queueSize, retryAfter, meterRegistry);
     }
 
     /**
@@ -122,15 +173,20 @@ public class SecurityConfig {
     /**
      * Создает бин AuthenticationProvider для настройки процесса аутентификации.
      *
+     * После успешного входа устаревший хеш пароля пересчитывается
+     * и сохраняется через {@link UserDetailsPasswordService}.
+     *
+     * @param passwordEncoder кодировщик паролей
      * @return AuthenticationProvider, который использует UserDetailsService
      * и PasswordEncoder для проверки учетных данных пользователей.
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(userService.userDetailsPasswordService());
 
         return authProvider;
     }
@@ -0,0 +1,38 @@
+package com.example.demo.config.datasource;
+
+/**
+ * Закрепляет чтения текущего запроса за основной базой после записи.
+ * <p>
+ * Реплики отстают от основной базы, поэтому запрос, который только что
+ * изменил данные, должен читать их оттуда же, куда записал. Признак живет
+ * в потоке до конца HTTP-запроса и сбрасывается {@link ReadYourWritesFilter}.
+ * </p>
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Направляет все последующие чтения текущего запроса в основную базу.
+     */
+    public static void pinPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    /**
+     * @return true, если чтения текущего запроса закреплены за основной базой
+     */
+    public static boolean isPrimaryPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * Снимает закрепление по окончании запроса.
+     */
+    public static void clear() {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Getter;
+
+/**
+ * Пул соединений реплики и ее последнее известное отставание.
+ * Реплика недоступна для чтения, пока {@link ReplicaLagMonitor}
+ * не подтвердит, что отставание в допустимых пределах.
+ */
+@Getter
+public class Replica {
+
+    private final String name;
+
+    private final HikariDataSource dataSource;
+
+    private volatile boolean available;
+
+    private volatile long lag = -1;
+
+    public Replica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return число занятых соединений пула
+     */
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    void update(long lag, boolean available) {
+        this.lag = lag;
+        this.available = available;
+    }
+}
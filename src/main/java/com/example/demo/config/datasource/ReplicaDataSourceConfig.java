@@ -0,0 +1,95 @@
+package com.example.demo.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Источник данных с основной базой и репликами для чтения.
+ * <p>
+ * Включается {@code DB_REPLICAS_ENABLED=true}. Основная база настраивается
+ * как обычно через {@code spring.datasource}, реплики — списком JDBC-адресов
+ * через запятую в {@code DB_REPLICA_URLS}. Читающие транзакции распределяются
+ * по репликам способом {@code REPLICA_SELECTION} ({@code round-robin} или
+ * {@code least-busy}).
+ * </p>
+ * <p>
+ * Отставание измеряется запросом {@code REPLICA_LAG_QUERY}, который должен
+ * вернуть число миллисекунд. Запрос по умолчанию рассчитан на PostgreSQL:
+ * реплика, применившая все полученные WAL-записи, считается не отстающей.
+ * Для локальной проверки на H2 его можно заменить на {@code SELECT 0}.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "DB_REPLICAS_ENABLED", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    private static final String PG_LAG_QUERY = "SELECT CAST(CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) " +
+            "END AS BIGINT)";
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${DB_REPLICA_URLS}") String replicaUrls,
+            @Value("${DB_REPLICA_USERNAME:${DB_USERNAME}}") String replicaUsername,
+            @Value("${DB_REPLICA_PASSWORD:${DB_PASSWORD}}") String replicaPassword,
+            @Value("${DB_REPLICA_POOL_SIZE:10}") int replicaPoolSize,
+            @Value("${REPLICA_SELECTION:round-robin}") String selection) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(replicaUrls)) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            String name = "replica-" + replicas.size();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(replicaUsername);
+            dataSource.setPassword(replicaPassword);
+            dataSource.setMaximumPoolSize(replicaPoolSize);
+            dataSource.setReadOnly(true);
+            replicas.add(new Replica(name, dataSource));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, ReplicaSelection.valueOf(
+                selection.trim().replace('-', '_').toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Источник данных приложения. Соединение берется при первом запросе,
+     * а не в начале транзакции, чтобы маршрутизация видела признак
+     * {@code readOnly}.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            @Value("${REPLICA_LAG_QUERY:" + PG_LAG_QUERY + "}") String lagQuery,
+            @Value("${REPLICA_MAX_LAG:1000}") long maxLag,
+            MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource, lagQuery, maxLag, meterRegistry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.config.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Периодически измеряет отставание реплик и исключает из чтения те,
+ * что отстали больше {@code REPLICA_MAX_LAG} или не отвечают.
+ * Отставание публикуется в метрике {@code db.replica.lag} (мс, тег
+ * {@code replica}; -1, если реплика недоступна).
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    private final String lagQuery;
+
+    private final long maxLag;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, String lagQuery,
+                             long maxLag, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        for (Replica replica : routingDataSource.getReplicas()) {
+            Gauge.builder("db.replica.lag", replica, Replica::getLag)
+                    .tag("replica", replica.getName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${REPLICA_LAG_CHECK_INTERVAL:1000}")
+    public void check() {
+        for (Replica replica : routingDataSource.getReplicas()) {
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                long lag = resultSet.next() ? resultSet.getLong(1) : 0;
+                boolean available = lag <= maxLag;
+                if (available != replica.isAvailable()) {
+                    log.info("Реплика {} {} для чтения, отставание {} мс", replica.getName(),
+                            available ? "доступна" : "исключена", lag);
+                }
+                replica.update(lag, available);
+            } catch (Exception e) {
+                if (replica.isAvailable()) {
+                    log.warn("Реплика {} исключена из чтения: {}", replica.getName(), e.getMessage());
+                }
+                replica.update(-1, false);
+            }
+        }
+    }
+}
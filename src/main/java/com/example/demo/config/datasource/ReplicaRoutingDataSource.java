@@ -0,0 +1,92 @@
+package com.example.demo.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Направляет читающие транзакции ({@code @Transactional(readOnly = true)})
+ * на реплики, а все остальное — в основную базу.
+ * <p>
+ * Основная база выбирается и вне транзакции, и если запрос уже что-то
+ * записал ({@link ReadYourWrites}), и если ни одна реплика не доступна.
+ * Ключ определяется при получении соединения, поэтому источник должен быть
+ * обернут в {@code LazyConnectionDataSourceProxy}: тогда соединение берется
+ * после того, как транзакция отмечена как читающая.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Ключ основной базы.
+     */
+    public static final String PRIMARY = "primary";
+
+    private final Replica[] replicas;
+
+    private final ReplicaSelection selection;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas,
+                                    ReplicaSelection selection) {
+        this.replicas = replicas.toArray(new Replica[0]);
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * @return реплики в порядке конфигурации
+     */
+    public List<Replica> getReplicas() {
+        return List.of(replicas);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadYourWrites.isPrimaryPinned()) {
+            return PRIMARY;
+        }
+        Replica replica = selection == ReplicaSelection.LEAST_BUSY
+                ? leastBusy() : roundRobin();
+        return replica != null ? replica.getName() : PRIMARY;
+    }
+
+    private Replica roundRobin() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica leastBusy() {
+        Replica best = null;
+        int bestActive = Integer.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable()) {
+                int active = replica.getActiveConnections();
+                if (active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.config.datasource;
+
+/**
+ * Способ выбора реплики для очередной читающей транзакции.
+ */
+public enum ReplicaSelection {
+
+    /**
+     * По кругу среди доступных реплик.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Реплика с наименьшим числом занятых соединений в пуле.
+     */
+    LEAST_BUSY
+}
@@ -0,0 +1,48 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.tokens.access.JwksProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контроллер, публикующий открытые ключи для локальной проверки
+ * аксес-токенов другими сервисами.
+ */
+@Tag(name = "Открытые ключи", description = "JWKS для проверки аксес-токенов")
+@RestController
+public class JwksController {
+
+    private final JwksProvider jwksProvider;
+
+    public JwksController(JwksProvider jwksProvider) {
+        this.jwksProvider = jwksProvider;
+    }
+
+    /**
+     * Возвращает предвычисленный JWKS-документ с заголовками кэширования.
+     * Если ETag клиента совпадает, отвечает 304 без тела.
+     *
+     * @param request текущий запрос
+     * @return JWKS-документ
+     */
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "Открытые ключи подписи токенов")
+    public ResponseEntity<byte[]> getJwks(WebRequest request) {
+        if (request.checkNotModified(jwksProvider.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .eTag(jwksProvider.getEtag())
+                .body(jwksProvider.getJwks());
+    }
+}
@@ -1,10 +1,11 @@
 package com.example.demo.controllers;
 
 import com.example.demo.dtos.UserDto;
+import com.example.demo.filter.RequiresPermission;
+import com.example.demo.models.role.Permission;
 import com.example.demo.services.auth.CurrentUserService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,13 +20,13 @@ public class TestController {
         return "Public content";
     }
 
-    @PreAuthorize("hasAuthority('ROLE_USER') or hasAuthority('ROLE_ADMIN')")
+    @RequiresPermission(Permission.PROFILE_READ)
     @GetMapping("/user")
     public String helloUser() {
         return "User content";
     }
 
-    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @RequiresPermission(Permission.USER_MANAGE)
     @GetMapping("/admin")
     public String helloAdmin() {
         return "Admin content";
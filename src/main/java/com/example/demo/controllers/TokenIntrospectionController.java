@@ -0,0 +1,46 @@
+package com.example.demo.controllers;
+
+import com.example.demo.filter.RequiresPermission;
+import com.example.demo.models.role.Permission;
+import com.example.demo.payloads.requests.TokenIntrospectionRequest;
+import com.example.demo.payloads.response.TokenIntrospectionResponse;
+import com.example.demo.services.tokens.access.TokenIntrospectionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер интроспекции аксес-токенов для внутренних сервисов.
+ * Вызывающий сервис аутентифицируется собственным токеном с правом
+ * {@link Permission#TOKEN_INTROSPECT}.
+ */
+@Tag(name = "Интроспекция токенов",
+        description = "Проверка аксес-токенов для внутренних сервисов")
+@RequestMapping("/api/v1/token")
+@RestController
+@RequiresPermission(Permission.TOKEN_INTROSPECT)
+public class TokenIntrospectionController {
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    public TokenIntrospectionController(TokenIntrospectionService tokenIntrospectionService) {
+        this.tokenIntrospectionService = tokenIntrospectionService;
+    }
+
+    /**
+     * Проверяет пачку аксес-токенов и возвращает их утверждения.
+     *
+     * @param request токены для проверки
+     * @return результаты в порядке токенов запроса
+     */
+    @PostMapping("/introspect")
+    @Operation(summary = "Интроспекция пачки аксес-токенов")
+    public TokenIntrospectionResponse introspect(
+            @RequestBody TokenIntrospectionRequest request) {
+        return new TokenIntrospectionResponse(
+                tokenIntrospectionService.introspect(request.getTokens()));
+    }
+}
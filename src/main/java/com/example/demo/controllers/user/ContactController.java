@@ -1,12 +1,17 @@
 package com.example.demo.controllers.user;
 
+import com.example.demo.dtos.UserContactDto;
 import com.example.demo.dtos.UserDto;
+import com.example.demo.models.user.PatchedUser;
 import com.example.demo.models.user.User;
 import com.example.demo.services.user.UserService;
 import com.example.demo.utils.UserMapper;
+import com.example.demo.utils.VersionETag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -48,13 +53,12 @@ public class ContactController {
     /**
      * Получает информацию о пользователе по username.
      *
-     * @return Информацией о пользователе
+     * @return Контактная информация о пользователе
      */
     @GetMapping("/{username}")
     @Operation(summary = "Получение информации о пользователе")
-    public UserDto getByUsername(@PathVariable String username) {
-        return userMapper.userToUserDto(userService
-                .getUserByUsername(username));
+    public UserContactDto getByUsername(@PathVariable String username) {
+        return userService.getContactByUsername(username);
     }
 
     /**
@@ -72,6 +76,29 @@ public class ContactController {
         return userMapper.userToUserDto(user);
     }
 
+    /**
+     * Частично обновляет информацию о пользователе по username одним
+     * запросом. Версия записи передается в заголовке If-Match и
+     * возвращается в заголовке ETag.
+     *
+     * @param username имя пользователя
+     * @param ifMatch  ETag версии, полученной клиентом
+     * @param userDto  DTO с изменяемыми полями
+     * @return DTO с информацией о пользователе
+     */
+    @PatchMapping("/{username}")
+    @Operation(summary = "Частичное обновление информации о пользователе")
+    public ResponseEntity<UserDto> patchByUsername(
+            @PathVariable String username,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody UserDto userDto) {
+        PatchedUser patched = userService.patchByUsername(username,
+                VersionETag.parse(ifMatch), userDto);
+        return ResponseEntity.ok()
+                .eTag(VersionETag.format(patched.getVersion()))
+                .body(patched.getUser());
+    }
+
     /**
      * Удаляет пользователя по username.
      */
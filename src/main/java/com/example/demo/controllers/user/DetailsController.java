@@ -1,13 +1,18 @@
 package com.example.demo.controllers.user;
 
+import com.example.demo.dtos.UserDetailsDto;
 import com.example.demo.dtos.UserDto;
+import com.example.demo.models.user.PatchedUser;
 import com.example.demo.models.user.User;
 import com.example.demo.services.user.UserService;
 import com.example.demo.utils.UserMapper;
+import com.example.demo.utils.VersionETag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Профиль пользователя (контактная информация)",
@@ -38,12 +43,12 @@ public class DetailsController {
     /**
      * Получает информацию о пользователе по username.
      *
-     * @return Информацией о пользователе
+     * @return Детальная информация о пользователе
      */
     @GetMapping("/{username}")
     @Operation(summary = "Получение информации о пользователе")
-    public UserDto getByUsername(@PathVariable String username) {
-        return userMapper.userToUserDto(userService.getUserByUsername(username));
+    public UserDetailsDto getByUsername(@PathVariable String username) {
+        return userService.getDetailsByUsername(username);
     }
 
     /**
@@ -60,6 +65,29 @@ public class DetailsController {
         return userMapper.userToUserDto(user);
     }
 
+    /**
+     * Частично обновляет информацию о пользователе по username одним
+     * запросом. Версия записи передается в заголовке If-Match и
+     * возвращается в заголовке ETag.
+     *
+     * @param username имя пользователя
+     * @param ifMatch  ETag версии, полученной клиентом
+     * @param userDto  DTO с изменяемыми полями
+     * @return DTO с информацией о пользователе
+     */
+    @PatchMapping("/{username}")
+    @Operation(summary = "Частичное обновление информации о пользователе")
+    public ResponseEntity<UserDto> patchByUsername(
+            @PathVariable String username,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody UserDto userDto) {
+        PatchedUser patched = userService.patchByUsername(username,
+                VersionETag.parse(ifMatch), userDto);
+        return ResponseEntity.ok()
+                .eTag(VersionETag.format(patched.getVersion()))
+                .body(patched.getUser());
+    }
+
     /**
      * Удаляет пользователя по username.
      */
@@ -1,12 +1,16 @@
 package com.example.demo.controllers.user;
 
 import com.example.demo.dtos.UserDto;
-import com.example.demo.models.user.User;
+import com.example.demo.filter.RequiresPermission;
+import com.example.demo.models.role.Permission;
+import com.example.demo.models.user.PatchedUser;
 import com.example.demo.services.auth.CurrentUserService;
 import com.example.demo.services.user.UserService;
+import com.example.demo.utils.VersionETag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -39,6 +43,7 @@ public class ProfileController {
      * @return DTO с информацией о текущем пользователе
      */
     @GetMapping()
+    @RequiresPermission(Permission.PROFILE_READ)
     @Operation(summary = "Получение информации пользователя о самом себе")
     public UserDto getCurrentUser() {
         return currentUserService.getCurrentUserDto();
@@ -51,10 +56,46 @@ public class ProfileController {
      * @return обновленная информация о пользователе в виде DTO
      */
     @PutMapping()
+    @RequiresPermission(Permission.PROFILE_WRITE)
     @Operation(summary = "Обновление информации пользователя о самом себе")
     public UserDto updateUser(@RequestBody UserDto userDto) {
-        User user = currentUserService.getCurrentUser();
-        return userService.updateByUsername(user.getUsername(), userDto);
+        return userService.updateByUsername(
+                currentUserService.getCurrentUsername(), userDto);
+    }
+
+    /**
+     * Частично обновляет информацию о текущем пользователе одним запросом.
+     * Версия записи передается в заголовке If-Match и возвращается
+     * в заголовке ETag.
+     *
+     * @param ifMatch ETag версии, полученной клиентом
+     * @param userDto DTO с изменяемыми полями
+     * @return обновленная информация о пользователе в виде DTO
+     */
+    @PatchMapping()
+    @RequiresPermission(Permission.PROFILE_WRITE)
+    @Operation(summary = "Частичное обновление информации пользователя о самом себе")
+    public ResponseEntity<UserDto> patchUser(
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody UserDto userDto) {
+        PatchedUser patched = userService.patchByUsername(
+                currentUserService.getCurrentUsername(), VersionETag.parse(ifMatch), userDto);
+        return ResponseEntity.ok()
+                .eTag(VersionETag.format(patched.getVersion()))
+                .body(patched.getUser());
+    }
+
+    /**
+     * Отзывает все токены текущего пользователя на всех устройствах.
+     *
+     * @return HTTP-ответ с кодом состояния NO_CONTENT
+     */
+    @PostMapping("/logout-all")
+    @RequiresPermission(Permission.PROFILE_WRITE)
+    @Operation(summary = "Выйти на всех устройствах")
+    public ResponseEntity<?> logoutEverywhere() {
+        userService.revokeTokens(currentUserService.getCurrentUserId());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     /**
@@ -64,10 +105,10 @@ public class ProfileController {
      * или UserNotFoundException при возникновении ошибки
      */
     @DeleteMapping()
+    @RequiresPermission(Permission.PROFILE_WRITE)
     @Operation(summary = "Удалить аккаунт")
     public ResponseEntity<?> deleteUser() {
-        User user = currentUserService.getCurrentUser();
-        userService.deleteUserByUsername(user.getUsername());
+        userService.deleteUserByUsername(currentUserService.getCurrentUsername());
         return new ResponseEntity<>(HttpStatus.OK);
     }
 }
@@ -0,0 +1,31 @@
+package com.example.demo.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Контактная информация пользователя. Заполняется запросом, который
+ * выбирает только нужные столбцы, без загрузки сущности.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class UserContactDto {
+
+    @Schema(description = "Уникальный идентификатор пользователя", example = "1")
+    private final Long id;
+
+    @Schema(description = "Логин пользователя", example = "Ivanov_NV")
+    private final String username;
+
+    @Schema(description = "Электронная почта пользователя",
+            example = "Ivanov_NV@mail.com")
+    private final String email;
+
+    @Schema(description = "Номер телефона пользователя", example = "+79213109999")
+    private final String phoneNumber;
+}
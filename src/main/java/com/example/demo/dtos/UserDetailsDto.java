@@ -0,0 +1,41 @@
+package com.example.demo.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Детальная информация пользователя. Заполняется запросом, который
+ * выбирает только нужные столбцы, без загрузки сущности.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class UserDetailsDto {
+
+    @Schema(description = "Уникальный идентификатор пользователя", example = "1")
+    private final Long id;
+
+    @Schema(description = "Логин пользователя", example = "Ivanov_NV")
+    private final String username;
+
+    @Schema(description = "Имя пользователя", example = "Николай")
+    private final String firstname;
+
+    @Schema(description = "Фамилия пользователя", example = "Иванов")
+    private final String surname;
+
+    @Schema(description = "Отчество пользователя", example = "Владимировоч")
+    private final String patronymic;
+
+    @Schema(description = "Дата рождения пользователя", example = "1985-5-5")
+    private final LocalDate birthDate;
+
+    @Schema(description = "Путь к фотографии пользователя")
+    private final String photo;
+}
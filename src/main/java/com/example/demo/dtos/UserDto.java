@@ -11,7 +11,7 @@ import java.time.LocalDate;
 @Getter
 @ToString
 @EqualsAndHashCode
-@RequiredArgsConstructor
+@NoArgsConstructor
 public class UserDto {
 
     @Schema(description = "Уникальный идентификатор пользователя", example = "1")
@@ -50,4 +50,23 @@ public class UserDto {
     @Schema(description = "Путь к фотографии пользователя")
     private String photo;
 
+    /**
+     * Конструктор для выборки профиля запросом без загрузки сущности.
+     * Пароль в профиль не попадает.
+     */
+    public UserDto(Long id, String firstname, String surname, String patronymic,
+                   LocalDate birthDate, Role role, String phoneNumber,
+                   String username, String email, String photo) {
+        this.id = id;
+        this.firstname = firstname;
+        this.surname = surname;
+        this.patronymic = patronymic;
+        this.birthDate = birthDate;
+        this.role = role;
+        this.phoneNumber = phoneNumber;
+        this.username = username;
+        this.email = email;
+        this.photo = photo;
+    }
+
 }
@@ -1,15 +1,21 @@
 package com.example.demo.exceptions;
 
 import com.example.demo.exceptions.auth.AuthException;
+import com.example.demo.exceptions.request.ServiceUnavailableException;
+import com.example.demo.exceptions.request.TooManyRequestsException;
 import com.example.demo.exceptions.request.WrongRequestException;
 import com.example.demo.exceptions.auth.PermissionException;
 import com.example.demo.exceptions.jwt.JwtAuthException;
 import com.example.demo.exceptions.jwt.JwtExpiredException;
+import com.example.demo.exceptions.jwt.RefreshTokenException;
 import com.example.demo.exceptions.user.UserAlreadyExistedException;
 import com.example.demo.exceptions.user.UserNotFoundException;
+import com.example.demo.exceptions.user.VersionConflictException;
 import com.example.demo.models.errors.AppError;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -28,6 +34,11 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * Значение заголовка WWW-Authenticate для отклоненного токена (RFC 6750).
+     */
+    private static final String INVALID_TOKEN_CHALLENGE = "Bearer error=\"invalid_token\"";
+
     /**
      * Обрабатывает исключение {@link UserNotFoundException}, которое
      * возникает, когда запрашиваемый пользователь не найден.
@@ -61,13 +72,14 @@ public class GlobalExceptionHandler {
      * при ошибке проверки JWT-токена.
      *
      * @param e исключение {@link JwtAuthException}
-     * @return ответ с кодом 401 UNAUTHORIZED и сообщением об ошибке
+     * @return ответ с кодом 401 UNAUTHORIZED, заголовком WWW-Authenticate
+     * и сообщением об ошибке
      */
     @ExceptionHandler
     public ResponseEntity<AppError> catchJwtAuthException (JwtAuthException e) {
-        return new ResponseEntity<>(
-                new AppError(HttpStatus.UNAUTHORIZED.value(),
-                        e.getMessage()), HttpStatus.UNAUTHORIZED);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, INVALID_TOKEN_CHALLENGE)
+                .body(new AppError(HttpStatus.UNAUTHORIZED.value(), e.getMessage()));
     }
 
     /**
@@ -75,11 +87,25 @@ public class GlobalExceptionHandler {
      * когда срок действия JWT-токена истек.
      *
      * @param e исключение {@link JwtExpiredException}
-     * @return ответ с кодом 401 UNAUTHORIZED и сообщением об истечении срока
-     * действия токена
+     * @return ответ с кодом 401 UNAUTHORIZED, заголовком WWW-Authenticate
+     * и сообщением об истечении срока действия токена
      */
     @ExceptionHandler
     public ResponseEntity<AppError> catchJwtExpiredException (JwtExpiredException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, INVALID_TOKEN_CHALLENGE)
+                .body(new AppError(HttpStatus.UNAUTHORIZED.value(), e.getMessage()));
+    }
+
+    /**
+     * Обрабатывает исключение {@link RefreshTokenException}, которое
+     * возникает, если рефреш-токен не найден или истек.
+     *
+     * @param e исключение {@link RefreshTokenException}
+     * @return ответ с кодом 401 UNAUTHORIZED и сообщением об ошибке
+     */
+    @ExceptionHandler
+    public ResponseEntity<AppError> catchRefreshTokenException(RefreshTokenException e) {
         return new ResponseEntity<>(
                 new AppError(HttpStatus.UNAUTHORIZED.value(),
                         e.getMessage()), HttpStatus.UNAUTHORIZED);
@@ -104,13 +130,13 @@ public class GlobalExceptionHandler {
      * которое возникает, если пользователь уже существует.
      *
      * @param e исключение {@link UserAlreadyExistedException}
-     * @return ответ с кодом BAD_REQUEST и сообщением об ошибке
+     * @return ответ с кодом CONFLICT и сообщением об ошибке
      */
     @ExceptionHandler
     public ResponseEntity<AppError> UserAlreadyExistedException (UserAlreadyExistedException e) {
         return new ResponseEntity<>(
-                new AppError(HttpStatus.BAD_REQUEST.value(),
-                        e.getMessage()), HttpStatus.BAD_REQUEST);
+                new AppError(HttpStatus.CONFLICT.value(),
+                        e.getMessage()), HttpStatus.CONFLICT);
     }
 
     /**
@@ -127,6 +153,69 @@ public class GlobalExceptionHandler {
                         e.getMessage()), HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Обрабатывает исключение {@link VersionConflictException},
+     * которое возникает, если запись изменена другим запросом.
+     *
+     * @param e исключение {@link VersionConflictException}
+     * @return ответ с кодом CONFLICT и сообщением об ошибке
+     */
+    @ExceptionHandler
+    public ResponseEntity<AppError> catchVersionConflictException(VersionConflictException e) {
+        return new ResponseEntity<>(
+                new AppError(HttpStatus.CONFLICT.value(),
+                        e.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Обрабатывает исключение {@link ObjectOptimisticLockingFailureException},
+     * которое возникает, если запись одновременно изменил другой запрос,
+     * а сервис не смог разрешить конфликт сам.
+     *
+     * @param e исключение {@link ObjectOptimisticLockingFailureException}
+     * @return ответ с кодом CONFLICT и сообщением об ошибке
+     */
+    @ExceptionHandler
+    public ResponseEntity<AppError> catchOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>(
+                new AppError(HttpStatus.CONFLICT.value(),
+                        "Запись была изменена другим запросом, повторите попытку"),
+                HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Обрабатывает исключение {@link ServiceUnavailableException},
+     * которое возникает, если сервис временно перегружен.
+     *
+     * @param e исключение {@link ServiceUnavailableException}
+     * @return ответ с кодом SERVICE_UNAVAILABLE, заголовком Retry-After,
+     * если пауза известна, и сообщением об ошибке
+     */
+    @ExceptionHandler
+    public ResponseEntity<AppError> catchServiceUnavailableException(ServiceUnavailableException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (e.getRetryAfter() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()));
+        }
+        return response.body(new AppError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()));
+    }
+
+    /**
+     * Обрабатывает исключение {@link TooManyRequestsException},
+     * которое возникает, если клиент превысил частоту запросов.
+     *
+     * @param e исключение {@link TooManyRequestsException}
+     * @return ответ с кодом TOO_MANY_REQUESTS, заголовком Retry-After
+     * и сообщением об ошибке
+     */
+    @ExceptionHandler
+    public ResponseEntity<AppError> catchTooManyRequestsException(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()))
+                .body(new AppError(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
+    }
+
     /**
      * Обрабатывает исключение {@link WrongRequestException},
      * которое возникает, если доступ закрыт.
@@ -1,20 +1,49 @@
 package com.example.demo.exceptions.jwt;
 
+import com.example.demo.models.token.TokenRejectionReason;
+
 /**
  * Исключение для обработки ошибок, связанных с JWT (JSON Web Token).
  * <p>
  * Это исключение расширяет {@link RuntimeException} и предназначено для
  * обозначения ошибок, возникающих при работе с JWT, таких как
  * ошибки аутентификации или проверки токенов.
+ * <p>
+ * Исключение не заполняет стек вызовов: отклонение токена — ожидаемая
+ * ситуация, и при потоке невалидных токенов построение стека обходится
+ * дороже самой проверки.
  */
 public class JwtAuthException extends RuntimeException {
 
+    /**
+     * Причина отклонения токена.
+     */
+    private final TokenRejectionReason reason;
+
     /**
      * Создает новое исключение JwtAuthException с заданным сообщением.
      *
      * @param message сообщение, которое описывает причину исключения.
      */
     public JwtAuthException(String message) {
-        super(message);
+        this(message, TokenRejectionReason.INVALID);
+    }
+
+    /**
+     * Создает новое исключение JwtAuthException с заданным сообщением и причиной.
+     *
+     * @param message сообщение, которое описывает причину исключения.
+     * @param reason  причина отклонения токена.
+     */
+    public JwtAuthException(String message, TokenRejectionReason reason) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    /**
+     * @return причина отклонения токена.
+     */
+    public TokenRejectionReason getReason() {
+        return reason;
     }
 }
@@ -1,12 +1,14 @@
 package com.example.demo.exceptions.jwt;
 
+import com.example.demo.models.token.TokenRejectionReason;
+
 /**
  * Исключение для обработки случаев истечения срока действия JWT (JSON Web Token).
  * <p>
- * Это исключение расширяет {@link RuntimeException} и предназначено для
+ * Это исключение расширяет {@link JwtAuthException} и предназначено для
  * обозначения ситуаций, когда JWT токен просрочен и больше не действителен.
  */
-public class JwtExpiredException extends RuntimeException {
+public class JwtExpiredException extends JwtAuthException {
 
     /**
      * Создает новое исключение JwtExpiredException с заданным сообщением.
@@ -15,6 +17,6 @@ public class JwtExpiredException extends RuntimeException {
      *                например, информацию о том, что срок действия токена истек.
      */
     public JwtExpiredException(String message) {
-        super(message);
+        super(message, TokenRejectionReason.EXPIRED);
     }
 }
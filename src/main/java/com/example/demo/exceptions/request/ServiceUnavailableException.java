@@ -0,0 +1,41 @@
+package com.example.demo.exceptions.request;
+
+/**
+ * Исключение, которое возникает, если сервис временно не может
+ * обработать запрос (перегрузка или истекшее ожидание ресурса).
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Через сколько секунд клиенту стоит повторить запрос или null.
+     */
+    private final Long retryAfter;
+
+    /**
+     * Создает новое исключение ServiceUnavailableException с заданным сообщением.
+     *
+     * @param message сообщение, которое описывает причину исключения.
+     */
+    public ServiceUnavailableException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * Создает новое исключение ServiceUnavailableException с заданным сообщением
+     * и рекомендуемой паузой перед повтором.
+     *
+     * @param message    сообщение, которое описывает причину исключения.
+     * @param retryAfter пауза перед повтором, секунды, или null.
+     */
+    public ServiceUnavailableException(String message, Long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return пауза перед повтором, секунды, или null
+     */
+    public Long getRetryAfter() {
+        return retryAfter;
+    }
+}
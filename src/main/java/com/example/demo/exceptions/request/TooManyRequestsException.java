@@ -0,0 +1,31 @@
+package com.example.demo.exceptions.request;
+
+/**
+ * Исключение, которое возникает, если клиент превысил допустимую
+ * частоту запросов.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * Через сколько секунд клиенту стоит повторить запрос.
+     */
+    private final long retryAfter;
+
+    /**
+     * Создает новое исключение TooManyRequestsException.
+     *
+     * @param message    сообщение, которое описывает причину исключения.
+     * @param retryAfter пауза перед повтором, секунды.
+     */
+    public TooManyRequestsException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return пауза перед повтором, секунды
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.exceptions.user;
+
+/**
+ * Исключение, которое возникает, если запись пользователя была изменена
+ * после того, как клиент получил ее версию (заголовок If-Match).
+ */
+public class VersionConflictException extends RuntimeException {
+
+    /**
+     * Создает новое исключение VersionConflictException с заданным сообщением.
+     *
+     * @param message сообщение, которое описывает причину исключения.
+     */
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,24 +1,37 @@
 package com.example.demo.filter;
 
 import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
+import com.example.demo.models.user.UserPrincipal;
 import com.example.demo.services.tokens.access.AccessTokenService;
+import com.example.demo.services.tokens.access.VerifiedTokenCache;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
 import com.example.demo.services.user.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * JwtAuthenticationFilter — это фильтр, который обрабатывает каждый входящий
@@ -35,7 +48,27 @@ import java.io.IOException;
  * дальше по цепочке, не изменяя контекст безопасности. Если токен валиден,
  * он аутентифицирует пользователя и устанавливает аутентификацию в
  * {@link SecurityContextHolder}.</p>
+ *
+ * <p>Токен разбирается и проверяется ровно один раз за запрос. Полученный
+ * {@link VerifiedToken} сохраняется в качестве учетных данных
+ * аутентификации и доступен последующему коду. Повторно предъявленные
+ * токены берутся из {@link VerifiedTokenCache} без проверки подписи.</p>
+ *
+ * <p>Предъявленный невалидный токен приводит к ответу 401, который
+ * формирует {@link com.example.demo.exceptions.GlobalExceptionHandler}.
+ * Отказы не пишутся в журнал с трассировкой стека, а учитываются в метрике
+ * {@code jwt.rejections} с разбивкой по причинам.</p>
+ *
+ * <p>Эпоха токена сравнивается с эпохой пользователя из
+ * {@link TokenEpochService}; токены, выпущенные до смены пароля или
+ * выхода на всех устройствах, отклоняются без обращения к базе данных.</p>
+ *
+ * <p>В режиме {@code STATELESS_PRINCIPAL} пользователь аутентифицируется
+ * по утверждениям токена ({@link UserPrincipal}) без обращения к базе
+ * данных. В остальных случаях principal загружается через кэш
+ * {@link com.example.demo.services.user.cache.PrincipalCache}.</p>
  */
+@Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -51,19 +84,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final AccessTokenService accessTokenService;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenEpochService tokenEpochService;
+
     private final UserService userService;
 
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    private final Map<TokenRejectionReason, Counter> rejections =
+            new EnumMap<>(TokenRejectionReason.class);
+
+    /**
+     * Аутентифицировать пользователя по утверждениям токена без загрузки из БД.
+     */
+    @Value("${STATELESS_PRINCIPAL:false}")
+    private boolean statelessPrincipal;
+
     public JwtAuthenticationFilter(AccessTokenService accessTokenService,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   TokenEpochService tokenEpochService,
                                    @Qualifier("userProfileService")
-                                   UserService userService) {
+                                   UserService userService,
+                                   @Qualifier("handlerExceptionResolver")
+                                   HandlerExceptionResolver handlerExceptionResolver,
+                                   MeterRegistry meterRegistry) {
         this.accessTokenService = accessTokenService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenEpochService = tokenEpochService;
         this.userService = userService;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        for (TokenRejectionReason reason : TokenRejectionReason.values()) {
+            rejections.put(reason, Counter.builder("jwt.rejections")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
     }
 
     /**
      * Фильтрует входящие запросы, проверяя наличие JWT-токена в заголовке
      * Authorization. Если токен найден и валиден, происходит извлечение
-     * данных пользователя и его аутентификация.
+     * данных пользователя и его аутентификация. Если токен невалиден,
+     * ответ 401 формируется обработчиком исключений.
      *
      * @param request     HTTP-запрос
      * @param response    HTTP-ответ
@@ -94,34 +156,80 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Обрезаем, получаем имя пользователя из токена
-        final String username = accessTokenService.getUsername(jwt);
-        if (StringUtils.isNotEmpty(username)
-                && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-            UserDetails userDetails = userService
-                    .userDetailsService()
-                    .loadUserByUsername(username);
-
-            // Если токен валиден, то аутентифицируем пользователя
-            if (accessTokenService.isTokenValid(jwt, userDetails)) {
-                SecurityContext context = SecurityContextHolder.createEmptyContext();
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-
-                authToken.setDetails(new WebAuthenticationDetailsSource()
-                        .buildDetails(request));
-                context.setAuthentication(authToken);
-                SecurityContextHolder.setContext(context);
-            }
+        // Проверяем подпись и извлекаем данные за один разбор,
+        // повторно предъявленные токены берутся из кэша
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = verifiedTokenCache.get(jwt, accessTokenService::verify);
+            checkNotRevoked(verifiedToken);
+        } catch (JwtAuthException e) {
+            rejections.get(e.getReason()).increment();
+            log.debug("Токен отклонен: {}", e.getMessage());
+            handlerExceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+
+        UserDetails userDetails = loadUserDetails(verifiedToken);
+
+        // Если пользователь существует, то аутентифицируем его
+        if (userDetails != null) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            verifiedToken,
+                            userDetails.getAuthorities()
+                    );
+
+            authToken.setDetails(new WebAuthenticationDetailsSource()
+                    .buildDetails(request));
+            context.setAuthentication(authToken);
+            SecurityContextHolder.setContext(context);
         }
 
         // Если токен валиден, продолжаем выполнение фильтра
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Проверяет, что токен выпущен не раньше последнего отзыва токенов
+     * пользователя.
+     *
+     * @param verifiedToken проверенный токен
+     * @throws JwtAuthException если токен отозван
+     */
+    private void checkNotRevoked(VerifiedToken verifiedToken) {
+        if (tokenEpochService.isRevoked(verifiedToken)) {
+            throw new JwtAuthException("Токен отозван", TokenRejectionReason.REVOKED);
+        }
+    }
+
+    /**
+     * Получает данные пользователя для аутентификации: из утверждений токена
+     * в режиме без состояния либо из базы данных.
+     *
+     * @param verifiedToken проверенный токен
+     * @return данные пользователя или null, если пользователь не найден
+     */
+    private UserDetails loadUserDetails(VerifiedToken verifiedToken) {
+        if (statelessPrincipal) {
+            UserPrincipal principal = UserPrincipal.from(verifiedToken);
+            if (principal != null) {
+                return principal;
+            }
+        }
+        try {
+            return userService
+                    .userDetailsService()
+                    .loadUserByUsername(verifiedToken.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.demo.filter;
+
+import com.example.demo.exceptions.auth.PermissionException;
+import com.example.demo.models.role.Permission;
+import com.example.demo.models.role.PermissionHolder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Проверяет права доступа, объявленные аннотацией {@link RequiresPermission}.
+ * <p>
+ * Необходимые маски прав вычисляются один раз при запуске приложения для
+ * всех обработчиков контроллеров. На каждый запрос выполняется один поиск
+ * в неизменяемой таблице и одна побитовая операция над маской прав
+ * principal ({@link PermissionHolder}), без вычисления выражений SpEL.
+ * </p>
+ * <p>
+ * Недостаточные права приводят к {@link PermissionException} (ответ 403).
+ * </p>
+ */
+@Slf4j
+@Component
+public class PermissionInterceptor implements HandlerInterceptor,
+        ApplicationListener<ContextRefreshedEvent> {
+
+    /**
+     * Маски прав по методам обработчиков. Обработчики без аннотации
+     * в таблицу не попадают.
+     */
+    private volatile Map<Method, Long> requiredPermissions = Map.of();
+
+    /**
+     * Вычисляет маски прав для всех обработчиков после запуска контекста.
+     *
+     * @param event событие обновления контекста
+     */
+    @Override
+    public void onApplicationEvent(@NonNull ContextRefreshedEvent event) {
+        Map<Method, Long> resolved = new HashMap<>();
+        event.getApplicationContext()
+                .getBeansOfType(RequestMappingHandlerMapping.class)
+                .values()
+                .forEach(mapping -> mapping.getHandlerMethods().values()
+                        .forEach(handlerMethod -> {
+                            long mask = resolve(handlerMethod);
+                            if (mask != 0) {
+                                resolved.put(handlerMethod.getMethod(), mask);
+                            }
+                        }));
+        requiredPermissions = Map.copyOf(resolved);
+        log.info("Права доступа вычислены для {} обработчиков", resolved.size());
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Long required = requiredPermissions.get(handlerMethod.getMethod());
+        if (required == null) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null ||
+                !(authentication.getPrincipal() instanceof PermissionHolder holder) ||
+                (holder.getPermissions() & required) != required) {
+            throw new PermissionException("Недостаточно прав доступа");
+        }
+        return true;
+    }
+
+    private static long resolve(HandlerMethod handlerMethod) {
+        long mask = 0;
+        RequiresPermission onType = AnnotatedElementUtils.findMergedAnnotation(
+                handlerMethod.getBeanType(), RequiresPermission.class);
+        if (onType != null) {
+            mask |= Permission.mask(onType.value());
+        }
+        RequiresPermission onMethod = AnnotatedElementUtils.findMergedAnnotation(
+                handlerMethod.getMethod(), RequiresPermission.class);
+        if (onMethod != null) {
+            mask |= Permission.mask(onMethod.value());
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.filter;
+
+import com.example.demo.models.role.Permission;
+
+import java.lang.annotation.*;
+
+/**
+ * Права доступа, необходимые для вызова обработчика контроллера.
+ * <p>
+ * Может стоять на классе контроллера и на методе: требуются все права,
+ * указанные на обоих уровнях. Проверяется {@link PermissionInterceptor}.
+ * </p>
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresPermission {
+
+    /**
+     * @return необходимые права доступа
+     */
+    Permission[] value();
+}
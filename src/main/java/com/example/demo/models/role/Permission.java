@@ -0,0 +1,59 @@
+package com.example.demo.models.role;
+
+/**
+ * Перечисление прав доступа.
+ * <p>
+ * Каждое право занимает фиксированный бит в маске, которая выдается роли
+ * и передается в аксес-токене утверждением {@code perm}. Номера битов
+ * являются частью формата токена и не должны меняться.
+ * </p>
+ */
+public enum Permission {
+
+    /**
+     * Чтение собственного профиля.
+     */
+    PROFILE_READ(0),
+
+    /**
+     * Изменение и удаление собственного профиля.
+     */
+    PROFILE_WRITE(1),
+
+    /**
+     * Интроспекция чужих аксес-токенов.
+     */
+    TOKEN_INTROSPECT(2),
+
+    /**
+     * Администрирование пользователей.
+     */
+    USER_MANAGE(3);
+
+    private final long bit;
+
+    Permission(int position) {
+        this.bit = 1L << position;
+    }
+
+    /**
+     * @return бит права в маске
+     */
+    public long getBit() {
+        return bit;
+    }
+
+    /**
+     * Собирает маску из набора прав.
+     *
+     * @param permissions права
+     * @return маска прав
+     */
+    public static long mask(Permission... permissions) {
+        long mask = 0;
+        for (Permission permission : permissions) {
+            mask |= permission.bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.models.role;
+
+/**
+ * Principal, которому выданы права доступа {@link Permission}.
+ */
+public interface PermissionHolder {
+
+    /**
+     * @return маска прав доступа
+     */
+    long getPermissions();
+}
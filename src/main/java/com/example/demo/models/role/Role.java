@@ -1,27 +1,56 @@
 package com.example.demo.models.role;
 
-import jakarta.persistence.*;
-import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
 
+import java.util.Set;
+
+import static com.example.demo.models.role.Permission.*;
+
 
 /**
  * Перечисление, представляющее возможные роли.
+ * <p>
+ * Каждой роли соответствует маска прав доступа {@link Permission}.
+ * Набор {@link GrantedAuthority} для Spring Security создается один раз.
+ * </p>
  */
-@RequiredArgsConstructor
 public enum Role implements GrantedAuthority {
 
-    ROLE_ADMIN("ROLE_ADMIN"),
-    ROLE_MODERATOR("ROLE_MODERATOR"),
-    ROLE_USER("ROLE_USER"),
+    ROLE_ADMIN("ROLE_ADMIN",
+            PROFILE_READ, PROFILE_WRITE, TOKEN_INTROSPECT, USER_MANAGE),
+    ROLE_MODERATOR("ROLE_MODERATOR", PROFILE_READ, PROFILE_WRITE),
+    ROLE_USER("ROLE_USER", PROFILE_READ, PROFILE_WRITE),
     DELETED_ACCOUNT("DELETED_ACCOUNT");
 
     private final String authority;
 
+    private final long permissions;
+
+    private final Set<GrantedAuthority> authorities;
+
+    Role(String authority, Permission... permissions) {
+        this.authority = authority;
+        this.permissions = Permission.mask(permissions);
+        this.authorities = Set.of(this);
+    }
+
     @Override
     public String getAuthority() {
         return authority;
     }
 
-}
+    /**
+     * @return маска прав доступа роли
+     */
+    public long getPermissions() {
+        return permissions;
+    }
 
+    /**
+     * @return неизменяемый набор прав для Spring Security
+     */
+    public Set<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.example.demo.models.token;
+
+import com.example.demo.models.role.Role;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Утверждения выпускаемого аксес-токена.
+ * <p>
+ * Фиксированный набор полей, который записывается в полезную нагрузку
+ * токена. Необязательные поля, равные null, в токен не попадают.
+ * </p>
+ */
+@Getter
+@Builder
+@ToString
+public class AccessTokenClaims {
+
+    /**
+     * Субъект токена (имя пользователя).
+     */
+    private final String subject;
+
+    /**
+     * Идентификатор пользователя.
+     */
+    private final Long id;
+
+    /**
+     * Имя пользователя.
+     */
+    private final String username;
+
+    /**
+     * Роль пользователя.
+     */
+    private final Role role;
+
+    /**
+     * Эпоха токенов пользователя на момент выпуска.
+     */
+    private final int epoch;
+
+    /**
+     * Маска прав доступа.
+     */
+    private final long permissions;
+
+    /**
+     * Время выпуска, мс.
+     */
+    private final long issuedAt;
+
+    /**
+     * Время истечения, мс.
+     */
+    private final long expiration;
+}
@@ -15,8 +15,14 @@ import java.util.Date;
 @Getter
 @Setter
 @Builder
+@NamedEntityGraph(name = RefreshToken.WITH_USER, attributeNodes = @NamedAttributeNode("user"))
 public class RefreshToken {
 
+    /**
+     * Граф загрузки токена вместе с пользователем.
+     */
+    public static final String WITH_USER = "RefreshToken.withUser";
+
     /**
      * Уникальный идентификатор.
      */
@@ -27,10 +33,14 @@ public class RefreshToken {
     private long id;
 
     /**
-     * Пользователь связанный с токеном.
+     * Пользователь связанный с токеном. Загружается лениво: пути, которым
+     * нужен пользователь, получают его одним запросом через
+     * {@link RefreshToken#WITH_USER}.
      */
-    @OneToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "user_id", referencedColumnName = "id")
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", unique = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private User user;
 
     /**
@@ -0,0 +1,28 @@
+package com.example.demo.models.token;
+
+/**
+ * Проекция владельца рефреш-токена: только то, что нужно для выпуска
+ * нового аксес-токена при ротации.
+ */
+public interface RefreshTokenOwner {
+
+    /**
+     * @return идентификатор пользователя
+     */
+    Long getId();
+
+    /**
+     * @return имя пользователя
+     */
+    String getUsername();
+
+    /**
+     * @return роль пользователя
+     */
+    String getRole();
+
+    /**
+     * @return эпоха токенов пользователя
+     */
+    int getTokenEpoch();
+}
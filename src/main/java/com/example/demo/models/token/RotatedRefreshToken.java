@@ -0,0 +1,34 @@
+package com.example.demo.models.token;
+
+import com.example.demo.models.user.UserPrincipal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Date;
+
+/**
+ * Результат ротации рефреш-токена: новый токен и данные владельца,
+ * достаточные для выпуска аксес-токена без загрузки сущности пользователя.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RotatedRefreshToken {
+
+    /**
+     * Новый рефреш-токен.
+     */
+    @ToString.Exclude
+    private final String token;
+
+    /**
+     * Время действия нового токена.
+     */
+    private final Date expiration;
+
+    /**
+     * Владелец токена.
+     */
+    private final UserPrincipal user;
+}
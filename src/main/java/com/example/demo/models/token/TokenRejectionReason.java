@@ -0,0 +1,43 @@
+package com.example.demo.models.token;
+
+/**
+ * Причина отклонения аксес-токена. Используется в метриках
+ * {@code jwt.rejections} вместо записи каждого отказа в журнал.
+ */
+public enum TokenRejectionReason {
+
+    /**
+     * Нарушена структура токена, Base64url или JSON.
+     */
+    MALFORMED,
+
+    /**
+     * Срок действия токена истек.
+     */
+    EXPIRED,
+
+    /**
+     * Подпись токена не совпадает.
+     */
+    INVALID_SIGNATURE,
+
+    /**
+     * Токен подписан неизвестным ключом.
+     */
+    UNKNOWN_KEY,
+
+    /**
+     * Неподдерживаемый тип токена или алгоритм подписи.
+     */
+    UNSUPPORTED,
+
+    /**
+     * Токен выпущен до отзыва токенов пользователя (устаревшая эпоха).
+     */
+    REVOKED,
+
+    /**
+     * Прочие причины.
+     */
+    INVALID
+}
@@ -0,0 +1,99 @@
+package com.example.demo.models.token;
+
+import com.example.demo.models.role.Role;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Неизменяемый результат проверки аксес-токена.
+ * <p>
+ * Создается один раз за запрос после проверки подписи и разбора утверждений,
+ * после чего передается фильтру и остальному коду вместо повторного
+ * разбора исходной строки токена.
+ * </p>
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class VerifiedToken {
+
+    /**
+     * Субъект токена (имя пользователя).
+     */
+    private final String subject;
+
+    /**
+     * Идентификатор пользователя, может отсутствовать.
+     */
+    private final Long id;
+
+    /**
+     * Роль пользователя, может отсутствовать.
+     */
+    private final Role role;
+
+    /**
+     * Момент истечения срока действия токена.
+     */
+    private final Instant expiration;
+
+    /**
+     * Эпоха токенов пользователя на момент выпуска. Токен отозван,
+     * если эпоха пользователя с тех пор увеличилась.
+     */
+    private final int epoch;
+
+    /**
+     * Маска прав доступа {@link com.example.demo.models.role.Permission}.
+     * Для токенов без утверждения {@code perm} берется маска роли.
+     */
+    private final long permissions;
+
+    /**
+     * Создает объект из проверенных утверждений токена.
+     *
+     * @param claims утверждения, полученные после проверки подписи
+     * @return проверенный токен
+     */
+    public static VerifiedToken of(Claims claims) {
+        String role = claims.get("role", String.class);
+        Integer epoch = claims.get("epoch", Integer.class);
+        Role parsedRole = role != null ? Role.valueOf(role) : null;
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                parsedRole,
+                claims.getExpiration().toInstant(),
+                epoch != null ? epoch : 0,
+                permissions(claims.get("perm", Long.class), parsedRole));
+    }
+
+    /**
+     * Возвращает маску прав доступа из утверждения {@code perm}, а для
+     * токенов, выпущенных без него, — маску роли.
+     *
+     * @param permissions значение утверждения {@code perm}
+     * @param role        роль из токена
+     * @return маска прав доступа
+     */
+    public static long permissions(Long permissions, Role role) {
+        if (permissions != null) {
+            return permissions;
+        }
+        return role != null ? role.getPermissions() : 0;
+    }
+
+    /**
+     * Проверяет, истек ли срок действия токена на указанный момент.
+     *
+     * @param now текущий момент
+     * @return true, если срок действия истек
+     */
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+}
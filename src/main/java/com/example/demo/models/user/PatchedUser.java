@@ -0,0 +1,31 @@
+package com.example.demo.models.user;
+
+import com.example.demo.dtos.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Состояние пользователя после частичного обновления, возвращенное
+ * тем же запросом {@code UPDATE ... RETURNING}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PatchedUser {
+
+    /**
+     * Профиль пользователя после обновления.
+     */
+    private final UserDto user;
+
+    /**
+     * Новая версия записи.
+     */
+    private final long version;
+
+    /**
+     * Эпоха токенов после обновления.
+     */
+    private final int tokenEpoch;
+}
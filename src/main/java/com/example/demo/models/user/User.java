@@ -1,7 +1,7 @@
 package com.example.demo.models.user;
 
+import com.example.demo.models.role.PermissionHolder;
 import com.example.demo.models.role.Role;
-import com.example.demo.models.token.RefreshToken;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
@@ -11,14 +11,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Класс пользователя в системе.
@@ -38,7 +36,7 @@ import java.util.stream.Collectors;
 @EqualsAndHashCode
 @NoArgsConstructor
 @AllArgsConstructor
-public class User implements UserDetails {
+public class User implements UserDetails, PermissionHolder {
 
     /**
      * Уникальный идентификатор пользователя.
@@ -122,11 +120,13 @@ public class User implements UserDetails {
     private String photo;
 
     /**
-     * Рефреш-токен.
+     * Эпоха токенов пользователя. Увеличивается при смене пароля
+     * и выходе на всех устройствах, отзывая выпущенные ранее токены.
      */
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL,
-            fetch = FetchType.LAZY, optional = false)
-    private RefreshToken refreshToken;
+    @Builder.Default
+    @Column(name = "token_epoch", nullable = false,
+            columnDefinition = "integer default 0 not null")
+    private int tokenEpoch = 0;
 
     /**
      * Дата создания пользователя. Поле автоматически заполняется
@@ -158,7 +158,16 @@ public class User implements UserDetails {
      * @return коллекция с единственной ролью пользователя
      */
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Set.of(new SimpleGrantedAuthority(role.getAuthority()));
+        return role != null ? role.getAuthorities() : Set.of();
+    }
+
+    /**
+     * Возвращает маску прав доступа, выданных роли пользователя.
+     *
+     * @return маска прав доступа
+     */
+    public long getPermissions() {
+        return role != null ? role.getPermissions() : 0;
     }
 
     /**
@@ -0,0 +1,80 @@
+package com.example.demo.models.user;
+
+import com.example.demo.dtos.UserDto;
+
+import java.util.function.Function;
+
+/**
+ * Изменяемые поля пользователя для частичного обновления (PATCH).
+ * <p>
+ * Связывает поле {@link UserDto} и {@link User} со столбцом таблицы {@code users}
+ * и со свойством {@link User}, по ограничениям которого проверяется значение.
+ * Имена столбцов — константы, поэтому их можно подставлять в текст
+ * запроса без экранирования.
+ * </p>
+ */
+public enum UserField {
+
+    FIRSTNAME("firstname", "firstname", UserDto::getFirstname, User::getFirstname),
+    SURNAME("surname", "surname", UserDto::getSurname, User::getSurname),
+    PATRONYMIC("patronymic", "patronymic", UserDto::getPatronymic, User::getPatronymic),
+    BIRTH_DATE("birth_date", "birthDate", UserDto::getBirthDate, User::getBirthDate),
+    PHONE_NUMBER("phone_number", "phoneNumber", UserDto::getPhoneNumber, User::getPhoneNumber),
+    EMAIL("email", "email", UserDto::getEmail, User::getEmail),
+    PHOTO("photo", "photo", UserDto::getPhoto, User::getPhoto),
+
+    /**
+     * Пароль. Сохраняется в виде хеша и отзывает выпущенные токены.
+     */
+    PASSWORD("password", "password", UserDto::getPassword, User::getPassword);
+
+    private final String column;
+
+    private final String property;
+
+    private final Function<UserDto, Object> getter;
+
+    private final Function<User, Object> entityGetter;
+
+    UserField(String column, String property, Function<UserDto, Object> getter,
+              Function<User, Object> entityGetter) {
+        this.column = column;
+        this.property = property;
+        this.getter = getter;
+        this.entityGetter = entityGetter;
+    }
+
+    /**
+     * @return имя столбца в таблице {@code users}
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return имя свойства {@link User}
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Читает значение поля из DTO.
+     *
+     * @param userDto DTO с изменениями
+     * @return значение или null, если поле не передано
+     */
+    public Object read(UserDto userDto) {
+        return getter.apply(userDto);
+    }
+
+    /**
+     * Читает значение поля из сущности.
+     *
+     * @param user пользователь
+     * @return значение или null, если поле не заполнено
+     */
+    public Object read(User user) {
+        return entityGetter.apply(user);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.models.user;
+
+import com.example.demo.models.role.PermissionHolder;
+import com.example.demo.models.role.Role;
+import com.example.demo.models.token.VerifiedToken;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Компактный неизменяемый principal аутентифицированного пользователя.
+ * <p>
+ * Используется Spring Security вместо JPA-сущности {@link User}: при входе
+ * ({@code DaoAuthenticationProvider}), в фильтре аутентификации запросов
+ * и в {@code CurrentUserService}. Содержит только идентификатор, имя
+ * пользователя, хеш пароля, роль, права и эпоху токенов; набор прав
+ * Spring Security общий для всех principal с одной ролью. Не изменяется
+ * после создания, поэтому может храниться в кэше между запросами.
+ * </p>
+ * <p>
+ * Principal, построенный из утверждений токена, не содержит хеша пароля.
+ * Полная сущность {@link User} загружается только тогда, когда она
+ * действительно нужна.
+ * </p>
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class UserPrincipal implements UserDetails, PermissionHolder {
+
+    /**
+     * Уникальный идентификатор пользователя.
+     */
+    private final Long id;
+
+    /**
+     * Логин пользователя.
+     */
+    private final String username;
+
+    /**
+     * Хеш пароля, null для principal из токена.
+     */
+    @ToString.Exclude
+    private final String password;
+
+    /**
+     * Роль пользователя в системе.
+     */
+    private final Role role;
+
+    /**
+     * Маска прав доступа.
+     */
+    private final long permissions;
+
+    /**
+     * Эпоха токенов пользователя.
+     */
+    private final int epoch;
+
+    /**
+     * Права доступа роли, общие для всех principal с этой ролью.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Set<GrantedAuthority> authorities;
+
+    public UserPrincipal(Long id, String username, String password, Role role,
+                         long permissions, int epoch) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+        this.permissions = permissions;
+        this.epoch = epoch;
+        this.authorities = role != null ? role.getAuthorities() : Set.of();
+    }
+
+    /**
+     * Создает principal из проверенного токена.
+     *
+     * @param token проверенный токен
+     * @return principal или null, если токен не содержит id или роли
+     */
+    public static UserPrincipal from(VerifiedToken token) {
+        if (token.getId() == null || token.getRole() == null) {
+            return null;
+        }
+        return new UserPrincipal(token.getId(), token.getSubject(), null, token.getRole(),
+                token.getPermissions(), token.getEpoch());
+    }
+
+    /**
+     * Создает principal из сущности пользователя.
+     *
+     * @param user пользователь
+     * @return principal
+     */
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(),
+                user.getRole(), user.getPermissions(), user.getTokenEpoch());
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.models.user;
+
+import java.util.Date;
+
+/**
+ * Проекция эпохи токенов пользователя для инкрементального обновления
+ * таблицы эпох.
+ */
+public interface UserTokenEpoch {
+
+    /**
+     * @return идентификатор пользователя
+     */
+    Long getId();
+
+    /**
+     * @return эпоха токенов пользователя
+     */
+    int getTokenEpoch();
+
+    /**
+     * @return дата последнего обновления пользователя
+     */
+    Date getUpdatedAt();
+}
@@ -0,0 +1,22 @@
+package com.example.demo.payloads.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO запроса на интроспекцию пачки аксес-токенов.
+ */
+@Data
+@Schema(description = "Запрос на интроспекцию токенов")
+public class TokenIntrospectionRequest {
+
+    @JsonProperty("tokens")
+    @Schema(description = "Аксес-токены для проверки")
+    @NotEmpty(message = "Список токенов не может быть пустым")
+    private List<@NotBlank(message = "Токен не может быть пустым") String> tokens;
+}
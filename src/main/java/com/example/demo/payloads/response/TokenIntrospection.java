@@ -0,0 +1,62 @@
+package com.example.demo.payloads.response;
+
+import com.example.demo.models.role.Role;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Результат интроспекции одного аксес-токена.
+ * <p>
+ * Для действующего токена содержит его утверждения, для недействующего —
+ * только признак {@code active = false} и причину отказа.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Результат интроспекции токена")
+public class TokenIntrospection {
+
+    @Schema(description = "Токен действует")
+    private final boolean active;
+
+    @Schema(description = "Имя пользователя")
+    private final String sub;
+
+    @Schema(description = "Идентификатор пользователя")
+    private final Long id;
+
+    @Schema(description = "Роль пользователя")
+    private final Role role;
+
+    @Schema(description = "Срок действия, секунды с начала эпохи")
+    private final Long exp;
+
+    @Schema(description = "Причина отказа")
+    private final TokenRejectionReason reason;
+
+    /**
+     * Создает результат для действующего токена.
+     *
+     * @param token проверенный токен
+     * @return результат интроспекции
+     */
+    public static TokenIntrospection active(VerifiedToken token) {
+        return new TokenIntrospection(true, token.getSubject(), token.getId(),
+                token.getRole(), token.getExpiration().getEpochSecond(), null);
+    }
+
+    /**
+     * Создает результат для недействующего токена.
+     *
+     * @param reason причина отказа
+     * @return результат интроспекции
+     */
+    public static TokenIntrospection inactive(TokenRejectionReason reason) {
+        return new TokenIntrospection(false, null, null, null, null, reason);
+    }
+}
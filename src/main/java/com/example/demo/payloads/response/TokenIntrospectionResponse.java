@@ -0,0 +1,20 @@
+package com.example.demo.payloads.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Ответ на интроспекцию пачки аксес-токенов. Результаты идут в том же
+ * порядке, что и токены в запросе.
+ */
+@Getter
+@AllArgsConstructor
+@Schema(description = "Результаты интроспекции токенов")
+public class TokenIntrospectionResponse {
+
+    @Schema(description = "Результаты в порядке токенов запроса")
+    private final List<TokenIntrospection> results;
+}
@@ -2,16 +2,20 @@ package com.example.demo.repositories.token;
 
 import com.example.demo.exceptions.jwt.RefreshTokenException;
 import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.token.RefreshTokenOwner;
 import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    @EntityGraph(RefreshToken.WITH_USER)
     Optional<RefreshToken> findByToken(String token);
 
     Optional<RefreshToken> findByUserId(Long id);
@@ -27,10 +31,43 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
 
     @Transactional
     @Modifying
-    void deleteByToken(String token) throws RefreshTokenException;
+    @Query(value = "DELETE FROM refresh_tokens t WHERE t.user_id = " +
+            "(SELECT u.id FROM users u WHERE u.username = ?1)", nativeQuery = true)
+    void deleteByUsername(String username);
+
+    /**
+     * Выпускает рефреш-токен пользователя одним запросом: вставляет новый
+     * или заменяет существующий (у пользователя один рефреш-токен).
+     *
+     * @param userId     идентификатор пользователя
+     * @param token      новый токен
+     * @param expiration время действия токена
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO refresh_tokens (user_id, token, expiration) VALUES (?1, ?2, ?3) " +
+            "ON CONFLICT (user_id) DO UPDATE SET token = EXCLUDED.token, " +
+            "expiration = EXCLUDED.expiration", nativeQuery = true)
+    void upsert(Long userId, String token, Date expiration);
 
     @Transactional
     @Modifying
-    @Query(value = "UPDATE refresh_tokens SET token = ?2 WHERE token = ?1", nativeQuery = true)
-    RefreshToken update(String OldToken, String NewToken);
+    void deleteByToken(String token) throws RefreshTokenException;
+
+    /**
+     * Ротирует действующий рефреш-токен одним запросом: заменяет токен
+     * и срок действия, только если старый токен существует и не истек,
+     * и тем же запросом возвращает данные владельца для аксес-токена.
+     *
+     * @param token      текущий токен
+     * @param newToken   новый токен
+     * @param expiration новое время действия
+     * @return владелец токена или пустой результат, если токен не найден или истек
+     */
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens t SET token = ?2, expiration = ?3 FROM users u " +
+            "WHERE t.token = ?1 AND t.expiration > CURRENT_TIMESTAMP AND u.id = t.user_id " +
+            "RETURNING u.id AS \"id\", u.username AS \"username\", u.role AS \"role\", " +
+            "u.token_epoch AS \"tokenEpoch\"", nativeQuery = true)
+    Optional<RefreshTokenOwner> rotate(String token, String newToken, Date expiration);
 }
@@ -0,0 +1,24 @@
+package com.example.demo.repositories.user;
+
+import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.user.User;
+
+import java.util.Optional;
+
+/**
+ * Создание пользователя одним запросом без предварительной проверки
+ * существования.
+ */
+public interface UserInsertRepository {
+
+    /**
+     * Вставляет пользователя, если логин и электронная почта свободны,
+     * и тем же запросом сохраняет его рефреш-токен.
+     *
+     * @param user         пользователь для создания
+     * @param refreshToken рефреш-токен пользователя или null
+     * @return идентификатор созданного пользователя или пустой результат,
+     * если логин или электронная почта уже заняты
+     */
+    Optional<Long> insertIfAbsent(User user, RefreshToken refreshToken);
+}
@@ -0,0 +1,63 @@
+package com.example.demo.repositories.user;
+
+import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.user.User;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Optional;
+
+/**
+ * Реализация {@link UserInsertRepository}: {@code INSERT ... ON CONFLICT DO NOTHING
+ * RETURNING id}. Если пользователь создан, рефреш-токен вставляется в том же
+ * запросе через CTE, поэтому регистрация занимает одно обращение к базе,
+ * а одновременные регистрации с одним логином не приводят к ошибке ограничения.
+ */
+public class UserInsertRepositoryImpl implements UserInsertRepository {
+
+    private static final String INSERT_USER = "INSERT INTO users (firstname, surname, " +
+            "patronymic, birth_date, phone_number, username, email, photo, password, role, " +
+            "token_epoch, version, created_at, updated_at) " +
+            "VALUES (:firstname, :surname, :patronymic, :birthDate, :phoneNumber, :username, " +
+            ":email, :photo, :password, :role, :tokenEpoch, :version, " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT DO NOTHING RETURNING id";
+
+    private static final String INSERT_USER_WITH_TOKEN = "WITH inserted AS (" + INSERT_USER + ") " +
+            "INSERT INTO refresh_tokens (user_id, token, expiration) " +
+            "SELECT id, :token, :expiration FROM inserted RETURNING user_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserInsertRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Long> insertIfAbsent(User user, RefreshToken refreshToken) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("firstname", user.getFirstname(), Types.VARCHAR)
+                .addValue("surname", user.getSurname(), Types.VARCHAR)
+                .addValue("patronymic", user.getPatronymic(), Types.VARCHAR)
+                .addValue("birthDate", user.getBirthDate(), Types.DATE)
+                .addValue("phoneNumber", user.getPhoneNumber(), Types.VARCHAR)
+                .addValue("username", user.getUsername(), Types.VARCHAR)
+                .addValue("email", user.getEmail(), Types.VARCHAR)
+                .addValue("photo", user.getPhoto(), Types.VARCHAR)
+                .addValue("password", user.getPassword(), Types.VARCHAR)
+                .addValue("role", user.getRole() != null ? user.getRole().name() : null,
+                        Types.VARCHAR)
+                .addValue("tokenEpoch", user.getTokenEpoch())
+                .addValue("version", user.getVersion() != null ? user.getVersion() : 1L);
+        String sql = INSERT_USER;
+        if (refreshToken != null) {
+            sql = INSERT_USER_WITH_TOKEN;
+            parameters.addValue("token", refreshToken.getToken(), Types.VARCHAR)
+                    .addValue("expiration",
+                            new Timestamp(refreshToken.getExpiration().getTime()), Types.TIMESTAMP);
+        }
+        return jdbcTemplate.queryForList(sql, parameters, Long.class).stream().findFirst();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repositories.user;
+
+import com.example.demo.models.user.PatchedUser;
+import com.example.demo.models.user.UserField;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Частичное обновление пользователя одним запросом.
+ */
+public interface UserPatchRepository {
+
+    /**
+     * Обновляет только переданные столбцы пользователя, увеличивает версию
+     * и возвращает новое состояние записи тем же запросом.
+     *
+     * @param username имя пользователя
+     * @param version  ожидаемая версия записи или null без проверки версии
+     * @param values   новые значения столбцов, не пустые
+     * @return новое состояние или пустой результат, если пользователь
+     * не найден или версия не совпала
+     */
+    Optional<PatchedUser> patchByUsername(String username, Long version,
+                                          Map<UserField, Object> values);
+}
@@ -0,0 +1,70 @@
+package com.example.demo.repositories.user;
+
+import com.example.demo.dtos.UserDto;
+import com.example.demo.models.role.Role;
+import com.example.demo.models.user.PatchedUser;
+import com.example.demo.models.user.UserField;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Date;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Реализация {@link UserPatchRepository}: запрос
+ * {@code UPDATE users SET <переданные столбцы> WHERE username = ? AND version = ?
+ * RETURNING ...} строится по набору полей {@link UserField}.
+ * Пароль меняется вместе с эпохой токенов.
+ */
+public class UserPatchRepositoryImpl implements UserPatchRepository {
+
+    private static final String RETURNING = " RETURNING id, firstname, surname, patronymic, " +
+            "birth_date, role, phone_number, username, email, photo, version, token_epoch";
+
+    private static final RowMapper<PatchedUser> ROW_MAPPER = (rs, rowNum) -> {
+        Date birthDate = rs.getDate("birth_date");
+        String role = rs.getString("role");
+        UserDto user = new UserDto(
+                rs.getLong("id"),
+                rs.getString("firstname"),
+                rs.getString("surname"),
+                rs.getString("patronymic"),
+                birthDate != null ? birthDate.toLocalDate() : null,
+                role != null ? Role.valueOf(role) : null,
+                rs.getString("phone_number"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("photo"));
+        return new PatchedUser(user, rs.getLong("version"), rs.getInt("token_epoch"));
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserPatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<PatchedUser> patchByUsername(String username, Long version,
+                                                 Map<UserField, Object> values) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET ");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("username", username);
+        for (Map.Entry<UserField, Object> entry : values.entrySet()) {
+            String column = entry.getKey().getColumn();
+            sql.append(column).append(" = :").append(column).append(", ");
+            parameters.addValue(column, entry.getValue());
+        }
+        if (values.containsKey(UserField.PASSWORD)) {
+            sql.append("token_epoch = token_epoch + 1, ");
+        }
+        sql.append("version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE username = :username");
+        if (version != null) {
+            sql.append(" AND version = :version");
+            parameters.addValue("version", version);
+        }
+        sql.append(RETURNING);
+        return jdbcTemplate.query(sql.toString(), parameters, ROW_MAPPER).stream().findFirst();
+    }
+}
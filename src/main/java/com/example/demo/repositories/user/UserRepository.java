@@ -1,11 +1,17 @@
 package com.example.demo.repositories.user;
 
+import com.example.demo.dtos.UserContactDto;
+import com.example.demo.dtos.UserDetailsDto;
+import com.example.demo.dtos.UserDto;
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserTokenEpoch;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +25,8 @@ import java.util.Optional;
  * </p>
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>,
+        UserPatchRepository, UserInsertRepository {
 
     /**
      * Ищет пользователя по имени пользователя (username).
@@ -29,6 +36,39 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     User findByUsername(String username) throws UsernameNotFoundException;
 
+    /**
+     * Выбирает профиль пользователя без загрузки сущности в контекст
+     * персистентности.
+     *
+     * @param username имя пользователя
+     * @return профиль пользователя
+     */
+    @Query("select new com.example.demo.dtos.UserDto(u.id, u.firstname, u.surname, " +
+            "u.patronymic, u.birthDate, u.role, u.phoneNumber, u.username, u.email, u.photo) " +
+            "from User u where u.username = ?1")
+    Optional<UserDto> findUserDtoByUsername(String username);
+
+    /**
+     * Выбирает только контактную информацию пользователя.
+     *
+     * @param username имя пользователя
+     * @return контактная информация
+     */
+    @Query("select new com.example.demo.dtos.UserContactDto(u.id, u.username, " +
+            "u.email, u.phoneNumber) from User u where u.username = ?1")
+    Optional<UserContactDto> findContactByUsername(String username);
+
+    /**
+     * Выбирает только детальную информацию пользователя.
+     *
+     * @param username имя пользователя
+     * @return детальная информация
+     */
+    @Query("select new com.example.demo.dtos.UserDetailsDto(u.id, u.username, " +
+            "u.firstname, u.surname, u.patronymic, u.birthDate, u.photo) " +
+            "from User u where u.username = ?1")
+    Optional<UserDetailsDto> findDetailsByUsername(String username);
+
     /**
      * Ищет пользователя по адресу электронной почты.
      *
@@ -74,10 +114,66 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     /**
-     * Удаляет пользователя по имени пользователя (username).
+     * Увеличивает эпоху токенов пользователя, отзывая все выпущенные
+     * ему аксес-токены. Версия записи тоже увеличивается, чтобы ранее
+     * загруженная сущность не затерла новую эпоху при сохранении.
+     *
+     * @param id идентификатор пользователя
+     */
+    @Modifying
+    @Query("update User u set u.tokenEpoch = u.tokenEpoch + 1, u.version = u.version + 1, " +
+            "u.updatedAt = CURRENT_TIMESTAMP where u.id = ?1")
+    void incrementTokenEpoch(Long id);
+
+    /**
+     * Заменяет хеш пароля тем же паролем, пересчитанным с новыми параметрами.
+     * Эпоха токенов не меняется: сам пароль остался прежним.
+     *
+     * @param username имя пользователя
+     * @param password новый хеш пароля
+     */
+    @Modifying
+    @Query("update User u set u.password = ?2, u.version = u.version + 1, " +
+            "u.updatedAt = CURRENT_TIMESTAMP where u.username = ?1")
+    void updatePassword(String username, String password);
+
+    /**
+     * Возвращает эпоху токенов пользователя.
+     *
+     * @param id идентификатор пользователя
+     * @return эпоха токенов
+     */
+    @Query("select u.tokenEpoch from User u where u.id = ?1")
+    int findTokenEpochById(Long id);
+
+    /**
+     * Возвращает имя пользователя по идентификатору.
+     *
+     * @param id идентификатор пользователя
+     * @return имя пользователя или пустое значение
+     */
+    @Query("select u.username from User u where u.id = ?1")
+    Optional<String> findUsernameById(Long id);
+
+    /**
+     * Ищет эпохи токенов пользователей, измененных после указанной даты.
+     * Пользователи, токены которых не отзывались, не возвращаются.
+     *
+     * @param since дата, после которой изменялись пользователи
+     * @return эпохи токенов измененных пользователей
+     */
+    @Query("select u.id as id, u.tokenEpoch as tokenEpoch, u.updatedAt as updatedAt " +
+            "from User u where u.updatedAt > ?1 and u.tokenEpoch > 0")
+    List<UserTokenEpoch> findTokenEpochsUpdatedAfter(Date since);
+
+    /**
+     * Удаляет пользователя по имени пользователя (username)
+     * одним запросом, без предварительной загрузки сущности.
      *
      * @param username имя пользователя
      */
+    @Modifying
+    @Query("delete from User u where u.username = ?1")
     void deleteByUsername(String username) throws UsernameNotFoundException;
 }
 
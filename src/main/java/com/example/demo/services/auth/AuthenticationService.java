@@ -7,8 +7,10 @@ import com.example.demo.payloads.requests.SignInRequest;
 import com.example.demo.payloads.requests.SignUpRequest;
 import com.example.demo.models.role.Role;
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserPrincipal;
 import com.example.demo.payloads.response.JwtAuthenticationResponse;
 import com.example.demo.services.tokens.access.AccessTokenService;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
 import com.example.demo.services.tokens.refresh.RefreshTokenService;
 import com.example.demo.services.user.UserService;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -17,6 +19,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Сервисный класс, отвечающий за аутентификацию и регистрацию пользователей.
@@ -43,15 +47,20 @@ public class AuthenticationService {
     private final RefreshTokenService refreshTokenService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
+    private final TokenEpochService tokenEpochService;
 
     public AuthenticationService(@Qualifier("userProfileService") UserService userService,
                                  AccessTokenService accessTokenService, RefreshTokenService refreshTokenService,
-                                 PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager) {
+                                 PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
+                                 LoginThrottle loginThrottle, TokenEpochService tokenEpochService) {
         this.userService = userService;
         this.accessTokenService = accessTokenService;
         this.refreshTokenService = refreshTokenService;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
+        this.loginThrottle = loginThrottle;
+        this.tokenEpochService = tokenEpochService;
     }
 
     /**
@@ -69,11 +78,11 @@ public class AuthenticationService {
                     .role(Role.ROLE_USER)
                     .build();
 
-            userService.createUser(user);
+            var refreshToken = refreshTokenService.generate(user);
+            userService.createUser(user, refreshToken);
 
             var accessToken = accessTokenService.generateToken(user);
-            var refreshToken = refreshTokenService.create(user).getToken();
-            return new JwtAuthenticationResponse(accessToken, refreshToken);
+            return new JwtAuthenticationResponse(accessToken, refreshToken.getToken());
 
         } catch (AuthenticationException ex) {
             throw new AuthException("Ошибка аутентификации пользователя. " + ex.getMessage());
@@ -84,7 +93,9 @@ public class AuthenticationService {
     }
 
     /**
-     * Аутентификация пользователя
+     * Аутентификация пользователя. Частота попыток ограничивается
+     * {@link LoginThrottle} до проверки пароля. Пользователь читается
+     * один раз при проверке пароля, а рефреш-токен выпускается одним запросом.
      *
      * @param request {@link SignInRequest}
      * @return Рефреш- и аксес-токены
@@ -92,14 +103,19 @@ public class AuthenticationService {
     public JwtAuthenticationResponse signIn(SignInRequest request) {
         try {
             request.setUsername(request.getUsername().toLowerCase());
-            authenticationManager.authenticate(
+            loginThrottle.acquire(request.getUsername(), clientAddress());
+            var authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getUsername(),
                             request.getPassword()
                     ));
-            var user = userService.getUserByUsername(request.getUsername());
+            loginThrottle.succeeded(request.getUsername());
+            var principal = (UserPrincipal) authentication.getPrincipal();
+            var user = new UserPrincipal(principal.getId(), principal.getUsername(), null,
+                    principal.getRole(), principal.getPermissions(),
+                    Math.max(principal.getEpoch(), tokenEpochService.getEpoch(principal.getId())));
             var accessToken = accessTokenService.generateToken(user);
-            var refreshToken = refreshTokenService.update(user).getToken();
+            var refreshToken = refreshTokenService.issue(user.getId()).getToken();
             return new JwtAuthenticationResponse(accessToken, refreshToken);
         } catch (AuthenticationException ex) {
             throw new AuthException("Ошибка аутентификации пользователя. " + ex.getMessage());
@@ -109,6 +125,14 @@ public class AuthenticationService {
         }
     }
 
+    /**
+     * @return адрес клиента текущего HTTP-запроса или null вне запроса
+     */
+    private static String clientAddress() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getRemoteAddr() : null;
+    }
+
     /**
      * Обновление рефреш-токена
      *
@@ -117,7 +141,7 @@ public class AuthenticationService {
      */
     public JwtAuthenticationResponse refreshToken(RefreshTokenRequest request) {
         try {
-            var refreshToken = refreshTokenService.update(request.getRefreshToken());
+            var refreshToken = refreshTokenService.rotate(request.getRefreshToken());
             var accessToken = accessTokenService.generateToken(refreshToken.getUser());
             return new JwtAuthenticationResponse(accessToken, refreshToken.getToken());
         } catch (AuthenticationException ex) {
@@ -0,0 +1,44 @@
+package com.example.demo.services.auth;
+
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * {@link DelegatingPasswordEncoder}, который считает хеши без префикса
+ * {@code {id}} хешами BCrypt.
+ * <p>
+ * Базовый класс требует пересчета любого хеша без префикса, не спрашивая
+ * кодировщик. Хеши {@code $2...} из старых записей и {@code init.sql}
+ * тогда пересчитывались бы при первом входе с откалиброванной стоимостью,
+ * даже если она ниже сохраненной. Здесь решение о пересчете таких хешей
+ * принимает {@link CalibratedBCryptPasswordEncoder}.
+ * </p>
+ */
+public class BCryptDelegatingPasswordEncoder extends DelegatingPasswordEncoder {
+
+    private static final String BCRYPT_PREFIX = "$2";
+
+    private final PasswordEncoder bcrypt;
+
+    /**
+     * @param idForEncode идентификатор кодировщика для новых хешей
+     * @param encoders    кодировщики по идентификаторам
+     * @param bcrypt      кодировщик BCrypt для хешей без префикса
+     */
+    public BCryptDelegatingPasswordEncoder(String idForEncode, Map<String, PasswordEncoder> encoders,
+                                           PasswordEncoder bcrypt) {
+        super(idForEncode, encoders);
+        this.bcrypt = bcrypt;
+        setDefaultPasswordEncoderForMatches(bcrypt);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String prefixEncodedPassword) {
+        if (prefixEncodedPassword != null && prefixEncodedPassword.startsWith(BCRYPT_PREFIX)) {
+            return bcrypt.upgradeEncoding(prefixEncodedPassword);
+        }
+        return super.upgradeEncoding(prefixEncodedPassword);
+    }
+}
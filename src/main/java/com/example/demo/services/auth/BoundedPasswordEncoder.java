@@ -0,0 +1,126 @@
+package com.example.demo.services.auth;
+
+import com.example.demo.exceptions.request.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PasswordEncoder}, который хеширует и проверяет пароли
+ * в отдельном пуле потоков фиксированного размера с ограниченной очередью.
+ * <p>
+ * BCrypt намеренно дорог, и при всплеске входов и регистраций потоки
+ * Tomcat заняты им целиком, а дешевые запросы ждут. Здесь одновременно
+ * хешируется не больше паролей, чем потоков в пуле; остальные ждут
+ * в очереди, а если и она заполнена, запрос сразу отклоняется с
+ * {@link ServiceUnavailableException} и заголовком {@code Retry-After}.
+ * </p>
+ * <p>
+ * Метрики: {@code password.hashing.queue} и {@code password.hashing.active} —
+ * глубина очереди и число занятых потоков, {@code password.hashing.wait} —
+ * время ожидания в очереди, {@code password.hashing.rejected} — отклоненные
+ * операции.
+ * </p>
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfter;
+
+    private final Timer waitTimer;
+
+    private final Counter rejected;
+
+    /**
+     * @param delegate      кодировщик, выполняющий хеширование
+     * @param threads       число потоков, 0 — по числу ядер
+     * @param queueSize     размер очереди ожидающих операций
+     * @param retryAfter    значение Retry-After при отказе, секунды
+     * @param meterRegistry реестр метрик
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize,
+                                  long retryAfter, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryAfter = retryAfter;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimer = Timer.builder("password.hashing.wait").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException(
+                    "Сервис перегружен, повторите попытку позже", retryAfter);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Проверка пароля прервана", retryAfter);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
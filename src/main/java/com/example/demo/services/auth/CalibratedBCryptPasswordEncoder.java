@@ -0,0 +1,94 @@
+package com.example.demo.services.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt с подобранной под оборудование стоимостью хеширования.
+ * <p>
+ * {@link #calibrate} измеряет время хеширования на этой машине и выбирает
+ * наибольшую стоимость, которая укладывается в заданное время. В отличие от
+ * {@link BCryptPasswordEncoder}, хеш считается устаревшим при стоимости
+ * ниже выбранной, поэтому слабые хеши усиливаются при следующем входе,
+ * а более дорогие остаются как есть.
+ * </p>
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private static final int SAMPLES = 3;
+
+    private final int cost;
+
+    public CalibratedBCryptPasswordEncoder(int cost) {
+        super(cost);
+        this.cost = cost;
+    }
+
+    /**
+     * Подбирает стоимость хеширования: наибольшую из диапазона, при которой
+     * хеширование занимает не больше целевого времени. Каждая следующая
+     * стоимость вдвое дороже, поэтому подбор останавливается на первой,
+     * превысившей цель, и сам занимает не больше нескольких целевых интервалов.
+     *
+     * @param targetMillis целевое время хеширования, мс
+     * @param minCost      минимальная допустимая стоимость
+     * @param maxCost      максимальная допустимая стоимость
+     * @return кодировщик с выбранной стоимостью
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minCost, int maxCost) {
+        int chosen = minCost;
+        for (int candidate = minCost; candidate <= maxCost; candidate++) {
+            long millis = measure(new BCryptPasswordEncoder(candidate));
+            log.info("BCrypt: стоимость {} — {} мс", candidate, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = candidate;
+        }
+        log.info("BCrypt: выбрана стоимость {} (цель {} мс)", chosen, targetMillis);
+        return new CalibratedBCryptPasswordEncoder(chosen);
+    }
+
+    /**
+     * Лучшее из нескольких измерений, чтобы прогрев JIT и паузы сборщика
+     * не завышали результат.
+     */
+    private static long measure(BCryptPasswordEncoder encoder) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+
+    /**
+     * @return выбранная стоимость хеширования
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Хеш требует пересчета, если его стоимость ниже выбранной.
+     * Более дорогие хеши не понижаются: калибровка на медленной машине
+     * не должна ослаблять уже сохраненные пароли.
+     * Стоимость записана в хеше: {@code $2a$12$...}.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(6) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < cost;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
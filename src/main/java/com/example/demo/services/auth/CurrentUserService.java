@@ -2,9 +2,12 @@ package com.example.demo.services.auth;
 
 import com.example.demo.dtos.UserDto;
 import com.example.demo.exceptions.auth.AuthException;
+import com.example.demo.models.token.VerifiedToken;
 import com.example.demo.models.user.User;
-import com.example.demo.utils.UserMapper;
+import com.example.demo.models.user.UserPrincipal;
+import com.example.demo.services.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -19,36 +22,88 @@ import org.springframework.stereotype.Service;
 @Service
 public class CurrentUserService {
     @Autowired
-    private UserMapper userMapper;
+    @Qualifier("userProfileService")
+    private UserService userService;
 
     /**
      * Получает текущего аутентифицированного пользователя.
      * Этот метод проверяет текущее значение {@link Authentication}
      * из {@link SecurityContextHolder}.
      * Убеждается, что аутентификация действительна и
-     * principal имеет тип {@link User}.
-     * Если аутентификация недействительна или principal не является
-     * {@link User}, то будет выброшено исключение.
+     * principal имеет тип {@link User} или {@link UserPrincipal}.
+     * Для {@link UserPrincipal} полная сущность загружается из базы данных.
+     * Если аутентификация недействительна, то будет выброшено исключение.
      *
      * @return текущий аутентифицированный {@link User}.
      */
     public User getCurrentUser() {
-        Authentication authentication =
-                SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null
-                || !(authentication.getPrincipal() instanceof User)) {
+        Object principal = getAuthentication().getPrincipal();
+        if (principal instanceof User user) {
+            return user;
+        }
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userService.getUserByUsername(userPrincipal.getUsername());
+        }
+        throw new AuthException("Ошибка аутентификации пользователя");
+    }
+
+    /**
+     * Получает имя текущего аутентифицированного пользователя
+     * без загрузки сущности из базы данных.
+     *
+     * @return имя текущего пользователя.
+     */
+    public String getCurrentUsername() {
+        return getAuthentication().getName();
+    }
+
+    /**
+     * Получает идентификатор текущего аутентифицированного пользователя.
+     * Идентификатор берется из токена, а для токенов без него —
+     * из сущности пользователя.
+     *
+     * @return идентификатор текущего пользователя.
+     */
+    public Long getCurrentUserId() {
+        Object principal = getAuthentication().getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
+    /**
+     * Получает проверенный аксес-токен текущего запроса, сохраненный
+     * фильтром аутентификации в качестве учетных данных.
+     *
+     * @return {@link VerifiedToken} текущего запроса.
+     */
+    public VerifiedToken getCurrentToken() {
+        Authentication authentication = getAuthentication();
+        if (!(authentication.getCredentials() instanceof VerifiedToken)) {
             throw new AuthException(
                     "Ошибка аутентификации пользователя");
         }
-        return (User) authentication.getPrincipal();
+        return (VerifiedToken) authentication.getCredentials();
     }
 
     /**
-     * То же самое, но возвращает {@link UserDto}
+     * То же самое, но возвращает {@link UserDto}. Профиль выбирается
+     * запросом только нужных столбцов, без загрузки сущности.
      *
      * @return текущий аутентифицированный {@link UserDto}.
      */
     public UserDto getCurrentUserDto() {
-        return userMapper.userToUserDto(getCurrentUser());
+        return userService.getUserDtoByUsername(getCurrentUsername());
+    }
+
+    private Authentication getAuthentication() {
+        Authentication authentication =
+                SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AuthException(
+                    "Ошибка аутентификации пользователя");
+        }
+        return authentication;
     }
 }
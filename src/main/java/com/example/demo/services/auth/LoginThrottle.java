@@ -0,0 +1,190 @@
+package com.example.demo.services.auth;
+
+import com.example.demo.exceptions.request.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничивает частоту попыток входа по имени пользователя и по адресу
+ * клиента до проверки пароля, чтобы перебор паролей не превращался
+ * в нагрузку на BCrypt.
+ * <p>
+ * Для каждого ключа хранится корзина токенов в виде одного
+ * {@link AtomicLong} (алгоритм GCRA): попытка проходит, если корзина
+ * не пуста, и обновляется одной операцией CAS без блокировок. Корзины
+ * лежат в ограниченных по размеру кэшах и удаляются, когда успели бы
+ * наполниться целиком, поэтому состояние затухает само.
+ * </p>
+ * <p>
+ * Обе корзины проверяются до того, как списать токен из любой из них:
+ * попытка, отклоненная по имени, не расходует лимит адреса. Успешный вход
+ * возвращает токен в корзину имени, поэтому строгий лимит по имени
+ * считает только неудачные попытки, и владелец учетной записи
+ * не блокирует себя частыми входами.
+ * </p>
+ * <p>
+ * Отклоненные попытки считаются в метрике {@code auth.login.throttled}
+ * с тегом {@code key} ({@code username} или {@code address}).
+ * </p>
+ */
+@Component
+public class LoginThrottle {
+
+    private final Limiter usernames;
+
+    private final Limiter addresses;
+
+    public LoginThrottle(@Value("${LOGIN_THROTTLE_USERNAME_BURST:5}") int usernameBurst,
+                         @Value("${LOGIN_THROTTLE_USERNAME_INTERVAL:12000}") long usernameInterval,
+                         @Value("${LOGIN_THROTTLE_ADDRESS_BURST:20}") int addressBurst,
+                         @Value("${LOGIN_THROTTLE_ADDRESS_INTERVAL:1000}") long addressInterval,
+                         @Value("${LOGIN_THROTTLE_MAX_KEYS:100000}") long maximumSize,
+                         MeterRegistry meterRegistry) {
+        this.usernames = new Limiter(usernameBurst, usernameInterval, maximumSize,
+                Counter.builder("auth.login.throttled").tag("key", "username")
+                        .register(meterRegistry), System::nanoTime);
+        this.addresses = new Limiter(addressBurst, addressInterval, maximumSize,
+                Counter.builder("auth.login.throttled").tag("key", "address")
+                        .register(meterRegistry), System::nanoTime);
+    }
+
+    /**
+     * Учитывает попытку входа.
+     *
+     * @param username имя пользователя из запроса
+     * @param address  адрес клиента или null, если неизвестен
+     * @throws TooManyRequestsException если попыток по имени или адресу слишком много
+     */
+    public void acquire(String username, String address) {
+        String key = normalize(username);
+        if (address != null) {
+            addresses.check(address);
+        }
+        if (key != null) {
+            usernames.check(key);
+        }
+        if (address != null) {
+            addresses.acquire(address);
+        }
+        if (key != null) {
+            try {
+                usernames.acquire(key);
+            } catch (TooManyRequestsException e) {
+                // корзину имени успел опустошить параллельный запрос
+                if (address != null) {
+                    addresses.refund(address);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Возвращает токен, списанный с имени пользователя, после успешного входа.
+     *
+     * @param username имя пользователя из запроса
+     */
+    public void succeeded(String username) {
+        String key = normalize(username);
+        if (key != null) {
+            usernames.refund(key);
+        }
+    }
+
+    private static String normalize(String username) {
+        return username != null ? username.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Корзины токенов одного вида ключей.
+     */
+    static class Limiter {
+
+        private final long intervalNanos;
+
+        private final long burstNanos;
+
+        private final Cache<String, AtomicLong> buckets;
+
+        private final Counter throttled;
+
+        private final LongSupplier clock;
+
+        Limiter(int burst, long interval, long maximumSize, Counter throttled, LongSupplier clock) {
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+            this.burstNanos = intervalNanos * burst;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterAccess(burstNanos, TimeUnit.NANOSECONDS)
+                    .ticker(clock::getAsLong)
+                    .build();
+            this.throttled = throttled;
+            this.clock = clock;
+        }
+
+        /**
+         * Проверяет, что попытка пройдет, не списывая токен.
+         */
+        void check(String key) {
+            AtomicLong bucket = buckets.getIfPresent(key);
+            if (bucket != null) {
+                long now = clock.getAsLong();
+                long ahead = next(bucket.get(), now) - now;
+                if (ahead > burstNanos) {
+                    throw throttled(ahead);
+                }
+            }
+        }
+
+        /**
+         * В корзине хранится теоретическое время следующей попытки: каждая
+         * попытка сдвигает его на интервал, а попытка отклоняется, если
+         * оно ушло вперед больше чем на {@code burst} интервалов.
+         */
+        void acquire(String key) {
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            while (true) {
+                long now = clock.getAsLong();
+                long stored = bucket.get();
+                long next = next(stored, now);
+                if (next - now > burstNanos) {
+                    throw throttled(next - now);
+                }
+                if (bucket.compareAndSet(stored, next)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Возвращает в корзину токен, списанный {@link #acquire(String)}.
+         */
+        void refund(String key) {
+            AtomicLong bucket = buckets.getIfPresent(key);
+            if (bucket != null) {
+                bucket.updateAndGet(stored -> stored == Long.MIN_VALUE ? stored : stored - intervalNanos);
+            }
+        }
+
+        private long next(long stored, long now) {
+            long arrival = stored == Long.MIN_VALUE || stored - now < 0 ? now : stored;
+            return arrival + intervalNanos;
+        }
+
+        private TooManyRequestsException throttled(long ahead) {
+            throttled.increment();
+            long retryAfter = TimeUnit.NANOSECONDS.toSeconds(ahead - burstNanos - 1) + 1;
+            return new TooManyRequestsException(
+                    "Слишком много попыток входа, повторите позже", retryAfter);
+        }
+    }
+}
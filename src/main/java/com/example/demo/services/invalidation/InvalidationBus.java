@@ -0,0 +1,20 @@
+package com.example.demo.services.invalidation;
+
+/**
+ * Шина инвалидации кэшей между узлами.
+ * <p>
+ * Реализация выбирается настройкой {@code INVALIDATION_BUS_ENABLED}:
+ * {@link PgNotifyInvalidationBus} либо {@link NoOpInvalidationBus}.
+ * Вызывающий код сам сбрасывает локальные кэши; шина доставляет событие
+ * остальным узлам.
+ * </p>
+ */
+public interface InvalidationBus {
+
+    /**
+     * Сообщает другим узлам о событии инвалидации.
+     *
+     * @param event событие инвалидации
+     */
+    void publish(InvalidationEvent event);
+}
@@ -0,0 +1,82 @@
+package com.example.demo.services.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие инвалидации локальных кэшей.
+ * <p>
+ * Публикуется через {@link InvalidationBus} и доставляется на все узлы
+ * в виде события приложения, которое обрабатывают владельцы кэшей.
+ * </p>
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class InvalidationEvent {
+
+    /**
+     * Тип события.
+     */
+    public enum Type {
+
+        /**
+         * Изменен или удален пользователь.
+         */
+        USER,
+
+        /**
+         * Увеличена эпоха токенов пользователя.
+         */
+        TOKEN_EPOCH,
+
+        /**
+         * Часть событий могла быть потеряна: сбросить все кэши.
+         */
+        ALL
+    }
+
+    private final Type type;
+
+    /**
+     * Имя пользователя для {@link Type#USER}.
+     */
+    private final String username;
+
+    /**
+     * Идентификатор пользователя для {@link Type#TOKEN_EPOCH}.
+     */
+    private final Long userId;
+
+    /**
+     * Новая эпоха для {@link Type#TOKEN_EPOCH}.
+     */
+    private final int epoch;
+
+    /**
+     * @param username имя измененного пользователя
+     * @return событие изменения пользователя
+     */
+    public static InvalidationEvent user(String username) {
+        return new InvalidationEvent(Type.USER, username, null, 0);
+    }
+
+    /**
+     * @param userId идентификатор пользователя
+     * @param epoch  новая эпоха токенов
+     * @return событие увеличения эпохи токенов
+     */
+    public static InvalidationEvent tokenEpoch(Long userId, int epoch) {
+        return new InvalidationEvent(Type.TOKEN_EPOCH, null, userId, epoch);
+    }
+
+    /**
+     * @return событие полного сброса кэшей
+     */
+    public static InvalidationEvent all() {
+        return new InvalidationEvent(Type.ALL, null, null, 0);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.services.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Отключенная шина для запуска в одном экземпляре.
+ */
+@Component
+@ConditionalOnProperty(name = "INVALIDATION_BUS_ENABLED", havingValue = "false",
+        matchIfMissing = true)
+public class NoOpInvalidationBus implements InvalidationBus {
+
+    @Override
+    public void publish(InvalidationEvent event) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.services.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Шина инвалидации поверх Postgres {@code LISTEN/NOTIFY}.
+ * <p>
+ * Событие публикуется вызовом {@code pg_notify} в канал
+ * {@value #CHANNEL}. Каждый узел держит отдельное от пула соединение,
+ * подписанное на канал, и превращает полученные уведомления в события
+ * приложения {@link InvalidationEvent}, которые обрабатывают владельцы
+ * кэшей. Собственные уведомления узла пропускаются.
+ * </p>
+ * <p>
+ * Всплески уведомлений схлопываются: все накопившиеся уведомления
+ * вычитываются разом и дедуплицируются, а слишком большая пачка
+ * заменяется полным сбросом кэшей. Уведомления, отправленные, пока
+ * соединение было разорвано, теряются, поэтому после каждого
+ * (пере)подключения публикуется {@link InvalidationEvent#all()}.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "INVALIDATION_BUS_ENABLED", havingValue = "true")
+public class PgNotifyInvalidationBus implements InvalidationBus, SmartLifecycle {
+
+    /**
+     * Канал уведомлений.
+     */
+    public static final String CHANNEL = "user_service_invalidation";
+
+    /**
+     * Размер пачки, начиная с которого вместо отдельных событий
+     * выполняется полный сброс кэшей.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private static final char SEPARATOR = '|';
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Интервал ожидания уведомлений, мс. Ограничивает время остановки.
+     */
+    private final int pollInterval;
+
+    /**
+     * Идентификатор узла, позволяющий пропускать собственные уведомления.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    public PgNotifyInvalidationBus(JdbcTemplate jdbcTemplate,
+                                   DataSourceProperties dataSourceProperties,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${INVALIDATION_BUS_POLL_INTERVAL:1000}") int pollInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Отправляет уведомление. Ошибка отправки не прерывает изменение данных:
+     * записи на других узлах устареют не дольше времени жизни кэшей.
+     *
+     * @param event событие инвалидации
+     */
+    @Override
+    public void publish(InvalidationEvent event) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+            }, CHANNEL, encode(event));
+        } catch (DataAccessException e) {
+            log.warn("Не удалось отправить событие инвалидации {}: {}", event, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(pollInterval * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        long reconnectDelay = pollInterval;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Подписка на канал инвалидации {} установлена", CHANNEL);
+                deliver(InvalidationEvent.all());
+                reconnectDelay = pollInterval;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollInterval);
+                    if (notifications != null && notifications.length > 0) {
+                        dispatch(drain(pgConnection, notifications));
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Соединение канала инвалидации потеряно: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * Вычитывает все накопившиеся уведомления без ожидания
+     * и дедуплицирует их.
+     */
+    private Set<String> drain(PGConnection connection, PGNotification[] first) throws SQLException {
+        Set<String> payloads = new LinkedHashSet<>();
+        PGNotification[] notifications = first;
+        while (notifications != null && notifications.length > 0
+                && payloads.size() <= MAX_BATCH_SIZE) {
+            for (PGNotification notification : notifications) {
+                payloads.add(notification.getParameter());
+            }
+            notifications = connection.getNotifications();
+        }
+        return payloads;
+    }
+
+    private void dispatch(Set<String> payloads) {
+        if (payloads.size() > MAX_BATCH_SIZE) {
+            deliver(InvalidationEvent.all());
+            return;
+        }
+        for (String payload : payloads) {
+            InvalidationEvent event = decode(payload);
+            if (event != null) {
+                deliver(event);
+            }
+        }
+    }
+
+    private void deliver(InvalidationEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Ошибка обработки события инвалидации {}: {}", event, e.getMessage());
+        }
+    }
+
+    private String encode(InvalidationEvent event) {
+        StringBuilder payload = new StringBuilder(nodeId)
+                .append(SEPARATOR).append(event.getType().name()).append(SEPARATOR);
+        switch (event.getType()) {
+            case USER -> payload.append(event.getUsername());
+            case TOKEN_EPOCH -> payload.append(event.getUserId())
+                    .append(SEPARATOR).append(event.getEpoch());
+            case ALL -> {
+            }
+        }
+        return payload.toString();
+    }
+
+    /**
+     * @return событие или null для собственных и нераспознанных уведомлений
+     */
+    private InvalidationEvent decode(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return null;
+        }
+        try {
+            return switch (InvalidationEvent.Type.valueOf(parts[1])) {
+                case USER -> InvalidationEvent.user(parts[2]);
+                case TOKEN_EPOCH -> {
+                    int separator = parts[2].indexOf(SEPARATOR);
+                    yield InvalidationEvent.tokenEpoch(
+                            Long.parseLong(parts[2].substring(0, separator)),
+                            Integer.parseInt(parts[2].substring(separator + 1)));
+                }
+                case ALL -> InvalidationEvent.all();
+            };
+        } catch (RuntimeException e) {
+            log.warn("Нераспознанное событие инвалидации: {}", payload);
+            return null;
+        }
+    }
+}
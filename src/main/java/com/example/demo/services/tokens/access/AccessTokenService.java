@@ -1,20 +1,23 @@
 package com.example.demo.services.tokens.access;
 
+import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.exceptions.jwt.JwtExpiredException;
+import com.example.demo.models.token.AccessTokenClaims;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
  * Сервисный класс для обработки операций JWT (JSON Web Token)
@@ -23,42 +26,93 @@ import java.util.function.Function;
  * <p>
  * Эта служба отвечает за:
  * - Генерацию JWT-токенов для аутентифицированных пользователей.
- * - Извлечение из токена определенных утверждений, таких как имя пользователя
- * или дата истечения срока действия.
- * - Проверка токена, чтобы убедиться, что он все еще действителен и соответствует
- * данные пользователя.
+ * - Проверку токена и извлечение из него утверждений за один разбор,
+ * результатом которого является {@link VerifiedToken}.
  * - Обработка подписания и истечения срока действия токена.
+ * </p>
+ * <p>
+ * Ключи подписи хранятся в {@link JwtKeyRing}. Токены HS256 выпускаются
+ * и проверяются {@link CompactJwtCodec}, остальные — общим парсером jjwt,
+ * который создается один раз и разделяется между всеми запросами.
+ * </p>
  */
 @Service
 @Getter
 @Slf4j
 public class AccessTokenService {
 
-    @Value("${SECRET_KEY}")
-    private String secretKey;
-
     @Value("${ACCESS_TOKEN_EXPIRATION}")
     private long accessTokenExpiration;
 
     /**
-     * Извлечение имени пользователя из токена
+     * Набор ключей подписи.
+     */
+    @Getter(AccessLevel.NONE)
+    private final JwtKeyRing keyRing;
+
+    /**
+     * Потокобезопасный парсер, общий для всех запросов.
+     * Ключ проверки выбирается по заголовку {@code kid}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final JwtParser jwtParser;
+
+    /**
+     * Быстрый кодек для токенов, подписанных HS256.
+     */
+    @Getter(AccessLevel.NONE)
+    private final CompactJwtCodec compactJwtCodec;
+
+    public AccessTokenService(JwtKeyRing keyRing, CompactJwtCodec compactJwtCodec) {
+        this.keyRing = keyRing;
+        this.compactJwtCodec = compactJwtCodec;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing)
+                .build();
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена и извлекает утверждения
+     * за один разбор.
      *
      * @param token токен
-     * @return username имя пользователя
+     * @return проверенный токен
+     * @throws JwtExpiredException если срок действия токена истек
+     * @throws JwtAuthException    если токен невалиден
      */
-    public String getUsername(String token) {
-        return extractClaims(token, Claims::getSubject);
+    public VerifiedToken verify(String token) {
+        VerifiedToken decoded = compactJwtCodec.decode(token);
+        if (decoded != null) {
+            return decoded;
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                throw new JwtAuthException("Токен не содержит субъекта или срока действия",
+                        TokenRejectionReason.MALFORMED);
+            }
+            return VerifiedToken.of(claims);
+        } catch (ExpiredJwtException expEx) {
+            throw new JwtExpiredException("Время жизни токена истекло");
+        } catch (UnsupportedJwtException unsEx) {
+            throw new JwtAuthException("Неподдерживаемый тип токена", TokenRejectionReason.UNSUPPORTED);
+        } catch (MalformedJwtException mjEx) {
+            throw new JwtAuthException("Некорректно сформированный токен", TokenRejectionReason.MALFORMED);
+        } catch (io.jsonwebtoken.security.SignatureException sigEx) {
+            throw new JwtAuthException("Невалидная подпись токена", TokenRejectionReason.INVALID_SIGNATURE);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new JwtAuthException("Невалидный токен");
+        }
     }
 
     /**
-     * @param token           токен
-     * @param claimsResolvers функция извлечения данных
-     * @param <T>             тип данных
-     * @return данные
+     * Извлечение имени пользователя из токена
+     *
+     * @param token токен
+     * @return username имя пользователя
      */
-    private <T> T extractClaims(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractClaims(token);
-        return claimsResolvers.apply(claims);
+    public String getUsername(String token) {
+        return verify(token).getSubject();
     }
 
     /**
@@ -68,111 +122,82 @@ public class AccessTokenService {
      * @return токен
      */
     public String generateToken(UserDetails userDetails) {
-        var claims = generateClaims(userDetails);
+        long now = System.currentTimeMillis();
+        JwtSigningKey key = keyRing.getActiveKey();
+        AccessTokenClaims claims = generateClaims(userDetails, now);
+        if (compactJwtCodec.supports(key)) {
+            return compactJwtCodec.encode(key, claims);
+        }
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + getAccessTokenExpiration()))
-                .signWith(getJwtKey(), SignatureAlgorithm.HS256)
+                .setHeaderParam(JwsHeader.KEY_ID, key.getId())
+                .setClaims(toMap(claims))
+                .setSubject(claims.getSubject())
+                .setIssuedAt(new Date(claims.getIssuedAt()))
+                .setExpiration(new Date(claims.getExpiration()))
+                .signWith(key.getSigningKey(), key.getAlgorithm())
                 .compact();
     }
 
     /**
      * @param userDetails данные пользователя
+     * @param now         время выпуска, мс
      * @return необходимые утверждения, связанные с пользователем
      */
-    private Map<String, Object> generateClaims(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        if (userDetails instanceof User customUserDetails) {
-            claims.put("id", customUserDetails.getId());
-            claims.put("username", customUserDetails.getUsername());
-            claims.put("role", customUserDetails.getRole());
+    private AccessTokenClaims generateClaims(UserDetails userDetails, long now) {
+        var claims = AccessTokenClaims.builder()
+                .subject(userDetails.getUsername())
+                .issuedAt(now)
+                .expiration(now + getAccessTokenExpiration());
+        UserPrincipal principal = null;
+        if (userDetails instanceof User user) {
+            principal = UserPrincipal.from(user);
+        } else if (userDetails instanceof UserPrincipal userPrincipal) {
+            principal = userPrincipal;
         }
-        return claims;
+        if (principal != null) {
+            claims.id(principal.getId())
+                    .username(principal.getUsername())
+                    .role(principal.getRole())
+                    .permissions(principal.getPermissions())
+                    .epoch(principal.getEpoch());
+        }
+        return claims.build();
     }
 
     /**
-     * Извлечение данных из токена
-     *
-     * @param token           токен
-     * @param claimsResolvers функция извлечения данных
-     * @param <T>             тип данных
-     * @return тип данных
+     * @param claims утверждения токена
+     * @return утверждения в виде, принимаемом jjwt
      */
-    private <T> T extractClaim(String token,
-                               Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractClaims(token);
-        return claimsResolvers.apply(claims);
+    private Map<String, Object> toMap(AccessTokenClaims claims) {
+        Map<String, Object> map = new HashMap<>();
+        if (claims.getId() != null) {
+            map.put("id", claims.getId());
+            map.put("epoch", claims.getEpoch());
+        }
+        if (claims.getUsername() != null) {
+            map.put("username", claims.getUsername());
+        }
+        if (claims.getRole() != null) {
+            map.put("role", claims.getRole());
+            map.put("perm", claims.getPermissions());
+        }
+        return map;
     }
 
     /**
      * Проверка действительности токена
      *
-     * @param token токен
+     * @param token       токен
+     * @param userDetails данные пользователя, которому должен принадлежать токен
      * @return true, если токен действителен
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getJwtKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (ExpiredJwtException expEx) {
-            log.error("Время жизни токена истекло", expEx);
-        } catch (UnsupportedJwtException unsEx) {
-            log.error("Неподдерживаемый тип токена", unsEx);
-        } catch (MalformedJwtException mjEx) {
-            log.error("Некорректно сформированный токен", mjEx);
-        } catch (Exception e) {
-            log.error("Невалидный токен", e);
+            return verify(token).getSubject().equals(userDetails.getUsername());
+        } catch (JwtAuthException e) {
+            log.debug("Токен отклонен: {}", e.getMessage());
+            return false;
         }
-        return false;
-    }
-
-    /**
-     * Проверка токена на истечение срока действия.
-     *
-     * @param token токен
-     * @return true, если срок действия токена истек
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    /**
-     * Извлечение даты истечения срока действия токена
-     *
-     * @param token токен
-     * @return дата истечения срока действия
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Извлечение всех данных из токена
-     *
-     * @param token токен
-     * @return данные
-     */
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getJwtKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Получение ключа для подписи токенов
-     *
-     * @return Key ключ для подписи токенов
-     */
-    private Key getJwtKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
     }
 
 }
@@ -0,0 +1,501 @@
+package com.example.demo.services.tokens.access;
+
+import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.exceptions.jwt.JwtExpiredException;
+import com.example.demo.models.role.Role;
+import com.example.demo.models.token.AccessTokenClaims;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Специализированный кодек компактной формы JWT для ключей HS256.
+ * <p>
+ * Работает только с фиксированным набором утверждений аксес-токена
+ * ({@code sub}, {@code id}, {@code username}, {@code role}, {@code perm},
+ * {@code epoch}, {@code iat}, {@code exp}): заголовок для каждого ключа кодируется один раз при старте,
+ * полезная нагрузка пишется и читается напрямую без промежуточных
+ * {@link Map} и сериализации через Jackson, а экземпляры {@link Mac}
+ * переиспользуются в пределах потока.
+ * </p>
+ * <p>
+ * Формат токенов совместим с jjwt: токены, выпущенные кодеком, проверяются
+ * jjwt и наоборот. Токены с другим алгоритмом подписи кодек не обрабатывает
+ * ({@link #decode(String)} возвращает null).
+ * </p>
+ * <p>
+ * Дешевые проверки выполняются до вычисления подписи: структура токена,
+ * алфавит Base64url и срок действия, поэтому просроченные и мусорные
+ * токены отклоняются без криптографии.
+ * </p>
+ */
+@Component
+public class CompactJwtCodec {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, HmacKey> keys = new HashMap<>();
+
+    private final HmacKey legacyKey;
+
+    public CompactJwtCodec(JwtKeyRing keyRing) {
+        for (JwtSigningKey key : keyRing.getKeys()) {
+            if (key.getAlgorithm() == SignatureAlgorithm.HS256) {
+                keys.put(key.getId(), new HmacKey(key));
+            }
+        }
+        JwtSigningKey legacy = keyRing.getKey(null);
+        legacyKey = legacy != null ? keys.get(legacy.getId()) : null;
+    }
+
+    /**
+     * Проверяет, может ли кодек подписывать токены указанным ключом.
+     *
+     * @param key ключ подписи
+     * @return true для ключей HS256
+     */
+    public boolean supports(JwtSigningKey key) {
+        return keys.containsKey(key.getId());
+    }
+
+    /**
+     * Формирует и подписывает токен.
+     *
+     * @param key    ключ подписи HS256
+     * @param claims утверждения токена
+     * @return компактная форма токена
+     */
+    public String encode(JwtSigningKey key, AccessTokenClaims claims) {
+        HmacKey hmacKey = keys.get(key.getId());
+        StringBuilder json = new StringBuilder(128).append('{');
+        if (claims.getId() != null) {
+            json.append("\"id\":").append(claims.getId().longValue())
+                    .append(",\"epoch\":").append(claims.getEpoch()).append(',');
+        }
+        if (claims.getUsername() != null) {
+            appendString(json.append("\"username\":"), claims.getUsername()).append(',');
+        }
+        if (claims.getRole() != null) {
+            appendString(json.append("\"role\":"), claims.getRole().name())
+                    .append(",\"perm\":").append(claims.getPermissions()).append(',');
+        }
+        appendString(json.append("\"sub\":"), claims.getSubject())
+                .append(",\"iat\":").append(claims.getIssuedAt() / 1000)
+                .append(",\"exp\":").append(claims.getExpiration() / 1000)
+                .append('}');
+
+        byte[] payload = ENCODER.encode(json.toString().getBytes(StandardCharsets.UTF_8));
+        Mac mac = hmacKey.mac.get();
+        mac.update(hmacKey.headerPrefix);
+        mac.update(payload);
+        byte[] signature = ENCODER.encode(mac.doFinal());
+
+        byte[] token = new byte[hmacKey.headerPrefix.length + payload.length + 1 + signature.length];
+        int offset = copy(hmacKey.headerPrefix, token, 0);
+        offset = copy(payload, token, offset);
+        token[offset++] = '.';
+        copy(signature, token, offset);
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена и извлекает утверждения.
+     *
+     * @param token компактная форма токена
+     * @return проверенный токен или null, если токен подписан не HS256
+     * и должен быть обработан jjwt
+     * @throws JwtExpiredException если срок действия токена истек
+     * @throws JwtAuthException    если токен невалиден
+     */
+    public VerifiedToken decode(String token) {
+        if (token == null) {
+            throw malformedToken();
+        }
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || payloadEnd == headerEnd + 1
+                || payloadEnd == token.length() - 1 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw malformedToken();
+        }
+        byte[] bytes = new byte[token.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = token.charAt(i);
+            if (!isBase64Url(c) && i != headerEnd && i != payloadEnd) {
+                throw malformedToken();
+            }
+            bytes[i] = (byte) c;
+        }
+
+        String algorithm = null;
+        String keyId = null;
+        JsonReader header = new JsonReader(decodeSegment(bytes, 0, headerEnd));
+        header.beginObject();
+        while (header.hasNext()) {
+            switch (header.nextName()) {
+                case "alg" -> algorithm = header.nextString();
+                case "kid" -> keyId = header.nextString();
+                default -> header.skipValue();
+            }
+        }
+        header.endObject();
+        if (!SignatureAlgorithm.HS256.getValue().equals(algorithm)) {
+            return null;
+        }
+        HmacKey key = keyId == null ? legacyKey : keys.get(keyId);
+        if (key == null) {
+            throw new JwtAuthException("Неизвестный ключ подписи", TokenRejectionReason.UNKNOWN_KEY);
+        }
+
+        // Срок действия проверяется до вычисления подписи
+        VerifiedToken verified = readClaims(decodeSegment(bytes, headerEnd + 1, payloadEnd));
+
+        Mac mac = key.mac.get();
+        mac.update(bytes, 0, payloadEnd);
+        byte[] expected = mac.doFinal();
+        byte[] actual = decodeSegment(bytes, payloadEnd + 1, bytes.length);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new JwtAuthException("Невалидная подпись токена", TokenRejectionReason.INVALID_SIGNATURE);
+        }
+        return verified;
+    }
+
+    private static VerifiedToken readClaims(byte[] payload) {
+        String subject = null;
+        Long id = null;
+        String role = null;
+        Long expiration = null;
+        Long notBefore = null;
+        Long permissions = null;
+        int epoch = 0;
+        JsonReader claims = new JsonReader(payload);
+        claims.beginObject();
+        while (claims.hasNext()) {
+            switch (claims.nextName()) {
+                case "sub" -> subject = claims.nextString();
+                case "id" -> id = claims.nextLongOrNull();
+                case "role" -> role = claims.nextString();
+                case "exp" -> expiration = claims.nextLong();
+                case "nbf" -> notBefore = claims.nextLong();
+                case "perm" -> permissions = claims.nextLong();
+                case "epoch" -> {
+                    long value = claims.nextLong();
+                    if (value < 0 || value > Integer.MAX_VALUE) {
+                        throw malformedToken();
+                    }
+                    epoch = (int) value;
+                }
+                default -> claims.skipValue();
+            }
+        }
+        claims.endObject();
+        if (subject == null || expiration == null) {
+            throw malformedToken();
+        }
+        Instant now = Instant.now();
+        Instant expiresAt = Instant.ofEpochSecond(expiration);
+        if (!expiresAt.isAfter(now)) {
+            throw new JwtExpiredException("Время жизни токена истекло");
+        }
+        if (notBefore != null && Instant.ofEpochSecond(notBefore).isAfter(now)) {
+            throw new JwtAuthException("Токен еще не действителен");
+        }
+        try {
+            Role parsedRole = role != null ? Role.valueOf(role) : null;
+            return new VerifiedToken(subject, id, parsedRole, expiresAt, epoch,
+                    VerifiedToken.permissions(permissions, parsedRole));
+        } catch (IllegalArgumentException e) {
+            throw malformedToken();
+        }
+    }
+
+    private static byte[] decodeSegment(byte[] token, int from, int to) {
+        try {
+            return DECODER.decode(Arrays.copyOfRange(token, from, to));
+        } catch (IllegalArgumentException e) {
+            throw malformedToken();
+        }
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+                || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+    private static JwtAuthException malformedToken() {
+        return new JwtAuthException("Некорректно сформированный токен", TokenRejectionReason.MALFORMED);
+    }
+
+    private static int copy(byte[] source, byte[] target, int offset) {
+        System.arraycopy(source, 0, target, offset, source.length);
+        return offset + source.length;
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Подготовленный ключ HS256: закодированный заголовок и
+     * экземпляры {@link Mac}, переиспользуемые в пределах потока.
+     */
+    private static final class HmacKey {
+
+        private final byte[] headerPrefix;
+
+        private final ThreadLocal<Mac> mac;
+
+        private HmacKey(JwtSigningKey key) {
+            StringBuilder header = new StringBuilder("{\"kid\":");
+            appendString(header, key.getId()).append(",\"alg\":\"HS256\"}");
+            this.headerPrefix = (ENCODER.encodeToString(header.toString().getBytes(StandardCharsets.UTF_8)) + ".")
+                    .getBytes(StandardCharsets.US_ASCII);
+            Key secret = key.getSigningKey();
+            this.mac = ThreadLocal.withInitial(() -> newMac(secret));
+        }
+
+        private static Mac newMac(Key secret) {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(secret);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Минимальный потоковый читатель плоского JSON-объекта.
+     * Любая ошибка формата приводит к {@link JwtAuthException}.
+     */
+    private static final class JsonReader {
+
+        private final byte[] json;
+
+        private int position;
+
+        private boolean first = true;
+
+        private JsonReader(byte[] json) {
+            this.json = json;
+        }
+
+        void beginObject() {
+            expect('{');
+        }
+
+        void endObject() {
+            expect('}');
+            skipWhitespace();
+            if (position != json.length) {
+                throw malformed();
+            }
+        }
+
+        boolean hasNext() {
+            skipWhitespace();
+            if (peek() == '}') {
+                return false;
+            }
+            if (!first) {
+                expect(',');
+            }
+            first = false;
+            return true;
+        }
+
+        String nextName() {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw malformed();
+            }
+            String name = nextString();
+            expect(':');
+            return name;
+        }
+
+        String nextString() {
+            skipWhitespace();
+            if (peek() == 'n') {
+                literal("null");
+                return null;
+            }
+            expect('"');
+            int start = position;
+            while (peek() != '"') {
+                if (json[position] == '\\') {
+                    return escapedString(start);
+                }
+                position++;
+            }
+            String value = new String(json, start, position - start, StandardCharsets.UTF_8);
+            position++;
+            return value;
+        }
+
+        Long nextLongOrNull() {
+            skipWhitespace();
+            if (peek() == 'n') {
+                literal("null");
+                return null;
+            }
+            return nextLong();
+        }
+
+        long nextLong() {
+            skipWhitespace();
+            boolean negative = peek() == '-';
+            if (negative) {
+                position++;
+            }
+            int start = position;
+            long value = 0;
+            while (position < json.length && json[position] >= '0' && json[position] <= '9') {
+                if (position - start == 18) {
+                    throw malformed();
+                }
+                value = value * 10 + (json[position++] - '0');
+            }
+            if (position == start) {
+                throw malformed();
+            }
+            return negative ? -value : value;
+        }
+
+        void skipValue() {
+            skipWhitespace();
+            int depth = 0;
+            do {
+                byte c = peek();
+                if (c == '"') {
+                    nextString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else if (depth == 0 && c == ',') {
+                    return;
+                }
+                if (depth < 0) {
+                    return;
+                }
+                position++;
+            } while (depth > 0 || !endOfScalar());
+        }
+
+        private boolean endOfScalar() {
+            skipWhitespace();
+            byte c = peek();
+            return c == ',' || c == '}';
+        }
+
+        private String escapedString(int start) {
+            StringBuilder value = new StringBuilder()
+                    .append(new String(json, start, position - start, StandardCharsets.UTF_8));
+            int chunk = position;
+            while (peek() != '"') {
+                if (json[position] != '\\') {
+                    position++;
+                    continue;
+                }
+                value.append(new String(json, chunk, position - chunk, StandardCharsets.UTF_8));
+                position++;
+                byte escaped = peek();
+                position++;
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append((char) escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > json.length) {
+                            throw malformed();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(
+                                    new String(json, position, 4, StandardCharsets.US_ASCII), 16));
+                        } catch (NumberFormatException e) {
+                            throw malformed();
+                        }
+                        position += 4;
+                    }
+                    default -> throw malformed();
+                }
+                chunk = position;
+            }
+            value.append(new String(json, chunk, position - chunk, StandardCharsets.UTF_8));
+            position++;
+            return value.toString();
+        }
+
+        private void literal(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (peek() != literal.charAt(i)) {
+                    throw malformed();
+                }
+                position++;
+            }
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (peek() != c) {
+                throw malformed();
+            }
+            position++;
+        }
+
+        private byte peek() {
+            if (position >= json.length) {
+                throw malformed();
+            }
+            return json[position];
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length && (json[position] == ' ' || json[position] == '\t'
+                    || json[position] == '\n' || json[position] == '\r')) {
+                position++;
+            }
+        }
+
+        private static JwtAuthException malformed() {
+            return malformedToken();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.services.tokens.access;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Формирует набор открытых ключей (JWKS) для проверки аксес-токенов
+ * другими сервисами.
+ * <p>
+ * Документ строится один раз при старте из асимметричных ключей
+ * {@link JwtKeyRing} (текущего и предыдущих) и отдается как готовый
+ * массив байтов. Симметричные ключи HS256 в JWKS не попадают.
+ * </p>
+ */
+@Component
+public class JwksProvider {
+
+    private static final int P256_COORDINATE_LENGTH = 32;
+
+    /**
+     * Сериализованный JWKS-документ.
+     */
+    @Getter
+    private final byte[] jwks;
+
+    /**
+     * Значение ETag, соответствующее содержимому документа.
+     */
+    @Getter
+    private final String etag;
+
+    public JwksProvider(JwtKeyRing keyRing, ObjectMapper objectMapper) throws JsonProcessingException {
+        List<Map<String, String>> keys = new ArrayList<>();
+        for (JwtSigningKey key : keyRing.getKeys()) {
+            if (key.getVerificationKey() instanceof ECPublicKey publicKey) {
+                Map<String, String> jwk = new LinkedHashMap<>();
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("use", "sig");
+                jwk.put("alg", key.getAlgorithm().getValue());
+                jwk.put("kid", key.getId());
+                jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+                jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+                keys.add(jwk);
+            }
+        }
+        this.jwks = objectMapper.writeValueAsBytes(Map.of("keys", keys));
+        this.etag = "\"" + Integer.toHexString(Arrays.hashCode(jwks)) + "\"";
+    }
+
+    /**
+     * Кодирует координату точки кривой в base64url фиксированной длины.
+     */
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[P256_COORDINATE_LENGTH];
+        int length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, fixed, P256_COORDINATE_LENGTH - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
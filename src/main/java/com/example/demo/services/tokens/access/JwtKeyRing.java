@@ -0,0 +1,156 @@
+package com.example.demo.services.tokens.access;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Набор ключей подписи аксес-токенов.
+ * <p>
+ * Все ключи декодируются и подготавливаются один раз при старте.
+ * Новые токены подписываются активным ключом, идентификатор которого
+ * записывается в заголовок {@code kid}; при проверке ключ выбирается
+ * по {@code kid} за O(1). Токены без {@code kid}, выпущенные до появления
+ * набора ключей, проверяются ключом {@code SECRET_KEY}.
+ * </p>
+ * <p>
+ * Помимо симметричных ключей HS256 поддерживаются ключи ES256: их открытые
+ * части публикуются в JWKS, что позволяет другим сервисам проверять токены
+ * локально. Для ранее использовавшихся ключей достаточно открытой части.
+ * </p>
+ * <p>
+ * Ротация без массового перелогина: новый ключ добавляется в
+ * {@code JWT_KEYS} на всех узлах, затем становится активным через
+ * {@code JWT_ACTIVE_KEY_ID}, а старый удаляется не раньше, чем истечет
+ * {@code ACCESS_TOKEN_EXPIRATION}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+
+    /**
+     * Идентификатор ключа, заданного через {@code SECRET_KEY}.
+     */
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private final Map<String, JwtSigningKey> keys;
+
+    /**
+     * Ключ, которым подписываются новые токены.
+     */
+    @Getter
+    private final JwtSigningKey activeKey;
+
+    /**
+     * Ключ для токенов без заголовка {@code kid}.
+     */
+    private final JwtSigningKey legacyKey;
+
+    /**
+     * @param secretKey   секрет HS256 в Base64 (ключ с идентификатором {@code default})
+     * @param keyRing     дополнительные ключи через запятую: {@code kid:base64}
+     *                    для HS256 или {@code kid:ES256:x509base64[:pkcs8base64]}
+     *                    (открытый и необязательный закрытый ключ)
+     * @param activeKeyId идентификатор ключа для подписи новых токенов
+     */
+    public JwtKeyRing(@Value("${SECRET_KEY}") String secretKey,
+                      @Value("${JWT_KEYS:}") String keyRing,
+                      @Value("${JWT_ACTIVE_KEY_ID:" + DEFAULT_KEY_ID + "}") String activeKeyId) {
+        Map<String, JwtSigningKey> loaded = new LinkedHashMap<>();
+        legacyKey = hmacKey(DEFAULT_KEY_ID, secretKey);
+        loaded.put(DEFAULT_KEY_ID, legacyKey);
+        for (String entry : StringUtils.commaDelimitedListToStringArray(keyRing)) {
+            JwtSigningKey key = parseKey(entry.trim());
+            loaded.put(key.getId(), key);
+        }
+        keys = Collections.unmodifiableMap(loaded);
+        activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("Активный ключ " + activeKeyId + " отсутствует в JWT_KEYS");
+        }
+        if (activeKey.getSigningKey() == null) {
+            throw new IllegalStateException("Для активного ключа " + activeKeyId + " не задан закрытый ключ");
+        }
+        log.info("Загружено ключей подписи: {}, активный ключ: {}", keys.size(), activeKey.getId());
+    }
+
+    /**
+     * Находит ключ по идентификатору.
+     *
+     * @param keyId идентификатор ключа
+     * @return ключ или null, если ключ неизвестен
+     */
+    public JwtSigningKey getKey(String keyId) {
+        return keyId == null ? legacyKey : keys.get(keyId);
+    }
+
+    /**
+     * @return все загруженные ключи
+     */
+    public Collection<JwtSigningKey> getKeys() {
+        return keys.values();
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        JwtSigningKey key = getKey(header.getKeyId());
+        if (key == null) {
+            throw new SignatureException("Неизвестный ключ подписи: " + header.getKeyId());
+        }
+        return key.getVerificationKey();
+    }
+
+    private static JwtSigningKey parseKey(String entry) {
+        String[] parts = entry.split(":");
+        if (parts[0].isBlank()) {
+            throw new IllegalStateException("Некорректный ключ в JWT_KEYS: не задан kid");
+        }
+        if (parts.length == 2) {
+            return hmacKey(parts[0], parts[1]);
+        }
+        if ((parts.length == 3 || parts.length == 4)
+                && SignatureAlgorithm.ES256.getValue().equals(parts[1])) {
+            return ecKey(parts[0], parts[2], parts.length == 4 ? parts[3] : null);
+        }
+        throw new IllegalStateException("Некорректный ключ в JWT_KEYS: " + parts[0]);
+    }
+
+    private static JwtSigningKey ecKey(String keyId, String base64Public, String base64Private) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            Key publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Decoders.BASE64.decode(base64Public)));
+            Key privateKey = base64Private == null ? null : keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Decoders.BASE64.decode(base64Private)));
+            return new JwtSigningKey(keyId, SignatureAlgorithm.ES256, privateKey, publicKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Некорректный ключ ES256 " + keyId, e);
+        }
+    }
+
+    private static JwtSigningKey hmacKey(String keyId, String base64Secret) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret.trim()));
+        return new JwtSigningKey(keyId, SignatureAlgorithm.HS256, key, key);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.services.tokens.access;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.security.Key;
+
+/**
+ * Предвычисленный ключ подписи из {@link JwtKeyRing}.
+ * <p>
+ * Идентификатор ключа записывается в заголовок {@code kid} токена
+ * и используется для выбора ключа при проверке.
+ * </p>
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@AllArgsConstructor
+public class JwtSigningKey {
+
+    /**
+     * Идентификатор ключа ({@code kid}).
+     */
+    @ToString.Include
+    private final String id;
+
+    /**
+     * Алгоритм подписи.
+     */
+    @ToString.Include
+    private final SignatureAlgorithm algorithm;
+
+    /**
+     * Ключ для подписи токенов. Может отсутствовать у асимметричных ключей,
+     * которые используются только для проверки ранее выпущенных токенов.
+     */
+    private final Key signingKey;
+
+    /**
+     * Ключ для проверки подписи.
+     */
+    private final Key verificationKey;
+}
@@ -0,0 +1,139 @@
+package com.example.demo.services.tokens.access;
+
+import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.exceptions.request.WrongRequestException;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
+import com.example.demo.payloads.response.TokenIntrospection;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис интроспекции аксес-токенов для сервисов, которые не могут
+ * проверять токены самостоятельно.
+ * <p>
+ * Токены проверяются пачкой за один вызов. Результат по каждому токену
+ * (в том числе отрицательный) хранится в кэше с коротким временем жизни
+ * ({@code TOKEN_INTROSPECTION_CACHE_TTL}), поэтому повторная интроспекция
+ * того же токена не требует проверки подписи. Ключом кэша, как и в
+ * {@link VerifiedTokenCache}, служит SHA-256 дайджест токена, а не сам
+ * токен. Запись о действующем токене не переживает срок действия токена;
+ * отзыв токенов учитывается с задержкой не больше времени жизни записи.
+ * Статистика кэша публикуется в метриках под именем {@code jwt.introspection}.
+ * </p>
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final AccessTokenService accessTokenService;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenEpochService tokenEpochService;
+
+    private final Cache<ByteBuffer, TokenIntrospection> cache;
+
+    private final int maxBatchSize;
+
+    public TokenIntrospectionService(AccessTokenService accessTokenService,
+                                     VerifiedTokenCache verifiedTokenCache,
+                                     TokenEpochService tokenEpochService,
+                                     @Value("${TOKEN_INTROSPECTION_CACHE_SIZE:10000}") long maximumSize,
+                                     @Value("${TOKEN_INTROSPECTION_CACHE_TTL:5000}") long ttl,
+                                     @Value("${TOKEN_INTROSPECTION_MAX_BATCH:100}") int maxBatchSize,
+                                     MeterRegistry meterRegistry) {
+        this.accessTokenService = accessTokenService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenEpochService = tokenEpochService;
+        this.maxBatchSize = maxBatchSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new NotLongerThanToken(TimeUnit.MILLISECONDS.toNanos(ttl)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.introspection");
+    }
+
+    /**
+     * Проверяет пачку токенов.
+     *
+     * @param tokens компактные формы токенов
+     * @return результаты в порядке токенов
+     * @throws WrongRequestException если пачка пуста или слишком велика
+     */
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty() || tokens.size() > maxBatchSize) {
+            throw new WrongRequestException("Ошибка: количество токенов должно быть " +
+                    "от 1 до " + maxBatchSize);
+        }
+        for (String token : tokens) {
+            if (token == null || token.isBlank()) {
+                throw new WrongRequestException("Ошибка: токен не может быть пустым");
+            }
+        }
+        List<TokenIntrospection> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(cache.get(VerifiedTokenCache.digest(token), key -> verify(token)));
+        }
+        return results;
+    }
+
+    private TokenIntrospection verify(String token) {
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = verifiedTokenCache.get(token, accessTokenService::verify);
+        } catch (JwtAuthException e) {
+            return TokenIntrospection.inactive(e.getReason());
+        }
+        if (tokenEpochService.isRevoked(verifiedToken)) {
+            return TokenIntrospection.inactive(TokenRejectionReason.REVOKED);
+        }
+        return TokenIntrospection.active(verifiedToken);
+    }
+
+    /**
+     * Время жизни записи ограничено настройкой и, для действующего токена,
+     * оставшимся сроком его действия.
+     */
+    private static class NotLongerThanToken implements Expiry<ByteBuffer, TokenIntrospection> {
+
+        private final long ttlNanos;
+
+        NotLongerThanToken(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, TokenIntrospection value, long currentTime) {
+            if (!value.isActive()) {
+                return ttlNanos;
+            }
+            long millis = value.getExp() * 1000 - Instant.now().toEpochMilli();
+            return Math.min(ttlNanos, Math.max(0, millis) * 1_000_000L);
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, TokenIntrospection value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, TokenIntrospection value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo.services.tokens.access;
+
+import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.models.token.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш проверенных аксес-токенов.
+ * <p>
+ * Ключом является SHA-256 дайджест компактной формы токена, значением —
+ * {@link VerifiedToken}. Запись никогда не живет дольше срока действия
+ * токена ({@code exp}), вытеснение выполняется политикой W-TinyLFU.
+ * Статистика попаданий, промахов и вытеснений публикуется в метриках
+ * под именем {@code jwt.verified}.
+ * </p>
+ * <p>
+ * Отдельный кэш с коротким временем жизни хранит результаты отклонения
+ * ({@code jwt.rejected}): токен, который предъявляют повторно после отказа,
+ * отклоняется без повторного разбора.
+ * </p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 =
+            ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+
+    private final boolean enabled;
+
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+
+    private final boolean rejectedEnabled;
+
+    private final Cache<ByteBuffer, JwtAuthException> rejected;
+
+    public VerifiedTokenCache(@Value("${ACCESS_TOKEN_CACHE_ENABLED:false}") boolean enabled,
+                              @Value("${ACCESS_TOKEN_CACHE_SIZE:10000}") long maximumSize,
+                              @Value("${REJECTED_TOKEN_CACHE_ENABLED:false}") boolean rejectedEnabled,
+                              @Value("${REJECTED_TOKEN_CACHE_SIZE:10000}") long rejectedMaximumSize,
+                              @Value("${REJECTED_TOKEN_CACHE_TTL:30000}") long rejectedTtl,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiration())
+                .recordStats()
+                .build();
+        this.rejectedEnabled = rejectedEnabled;
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(rejectedMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(rejectedTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "jwt.rejected");
+    }
+
+    /**
+     * Возвращает проверенный токен из кэша либо проверяет его и кэширует
+     * результат. Отказ в проверке запоминается на короткое время и
+     * пробрасывается вызывающему.
+     *
+     * @param token    компактная форма токена
+     * @param verifier функция проверки подписи и разбора токена
+     * @return проверенный токен
+     * @throws JwtAuthException если токен невалиден или был недавно отклонен
+     */
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        if (!enabled && !rejectedEnabled) {
+            return verifier.apply(token);
+        }
+        ByteBuffer key = digest(token);
+        if (rejectedEnabled) {
+            JwtAuthException rejection = rejected.getIfPresent(key);
+            if (rejection != null) {
+                throw rejection;
+            }
+        }
+        if (enabled) {
+            VerifiedToken cached = cache.getIfPresent(key);
+            if (cached != null && !cached.isExpired(Instant.now())) {
+                return cached;
+            }
+        }
+        VerifiedToken verified;
+        try {
+            verified = verifier.apply(token);
+        } catch (JwtAuthException e) {
+            if (rejectedEnabled) {
+                rejected.put(key, e);
+            }
+            throw e;
+        }
+        if (enabled) {
+            cache.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Удаляет все записи из кэша.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        rejected.invalidateAll();
+    }
+
+    /**
+     * @param token компактная форма токена
+     * @return SHA-256 дайджест токена, ключ кэшей проверенных токенов
+     */
+    static ByteBuffer digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Время жизни записи равно оставшемуся сроку действия токена.
+     */
+    private static class UntilTokenExpiration implements Expiry<ByteBuffer, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+            long millis = value.getExpiration().toEpochMilli() - System.currentTimeMillis();
+            return Math.max(0, millis) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedToken value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedToken value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
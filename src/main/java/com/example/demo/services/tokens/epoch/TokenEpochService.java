@@ -0,0 +1,203 @@
+package com.example.demo.services.tokens.epoch;
+
+import com.example.demo.models.token.VerifiedToken;
+import com.example.demo.models.user.UserTokenEpoch;
+import com.example.demo.repositories.token.RefreshTokenRepository;
+import com.example.demo.repositories.user.UserRepository;
+import com.example.demo.services.invalidation.InvalidationBus;
+import com.example.demo.services.invalidation.InvalidationEvent;
+import com.example.demo.utils.LongIntHashMap;
+import com.example.demo.utils.TransactionHooks;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Сервис эпох токенов пользователей.
+ * <p>
+ * Каждый аксес-токен содержит эпоху пользователя на момент выпуска.
+ * Увеличение эпохи (смена пароля, выход на всех устройствах) мгновенно
+ * отзывает все ранее выпущенные токены пользователя.
+ * </p>
+ * <p>
+ * Для проверки на каждом запросе эпохи хранятся в памяти в компактной
+ * таблице {@code long → int}, в которую попадают только пользователи
+ * с ненулевой эпохой. Чтение выполняется без блокировок: таблицы
+ * не изменяются после публикации, а изменения создают новые копии.
+ * Чтобы отзыв не копировал всю таблицу (она растет с числом пользователей,
+ * когда-либо отзывавших токены), новые эпохи копятся в небольшой таблице
+ * последних изменений и переносятся в основную пачкой: когда их набирается
+ * {@value #MAX_RECENT} или когда периодическое обновление находит новые
+ * эпохи. Отзывы копируют всю таблицу не чаще раза на {@value #MAX_RECENT},
+ * а проверка токена стоит не больше двух поисков. Изменения с других узлов
+ * приходят через {@link InvalidationBus}, а пропущенные события
+ * подтягиваются периодическим инкрементальным запросом по {@code updated_at}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class TokenEpochService {
+
+    /**
+     * Запас по времени при инкрементальном обновлении, покрывающий
+     * расхождение часов узлов и базы данных.
+     */
+    private static final long REFRESH_OVERLAP_MS = 60_000;
+
+    /**
+     * Сколько последних изменений копится до переноса в основную таблицу.
+     */
+    private static final int MAX_RECENT = 64;
+
+    private final UserRepository userRepository;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final InvalidationBus invalidationBus;
+
+    private volatile Epochs epochs = new Epochs(new LongIntHashMap(0), new LongIntHashMap(0));
+
+    private Date watermark = new Date(0);
+
+    public TokenEpochService(UserRepository userRepository,
+                             RefreshTokenRepository refreshTokenRepository,
+                             InvalidationBus invalidationBus) {
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Возвращает текущую эпоху токенов пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return эпоха, 0 если токены пользователя не отзывались
+     */
+    public int getEpoch(long userId) {
+        return epochs.get(userId);
+    }
+
+    /**
+     * Проверяет, отозван ли токен: выпущен ли он до последнего увеличения
+     * эпохи пользователя.
+     *
+     * @param verifiedToken проверенный токен
+     * @return true, если токен отозван
+     */
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        return verifiedToken.getId() != null &&
+                verifiedToken.getEpoch() < getEpoch(verifiedToken.getId());
+    }
+
+    /**
+     * Отзывает все аксес- и рефреш-токены пользователя. Локальная таблица
+     * обновляется после фиксации транзакции: эпоха в ней только растет,
+     * и после отката узел отклонял бы действующие токены до перезапуска.
+     *
+     * @param userId идентификатор пользователя
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenEpoch(userId);
+        refreshTokenRepository.deleteByUserId(userId);
+        int epoch = userRepository.findTokenEpochById(userId);
+        TransactionHooks.afterCommit(() -> advance(userId, epoch));
+        invalidationBus.publish(InvalidationEvent.tokenEpoch(userId, epoch));
+    }
+
+    /**
+     * Учитывает новую эпоху пользователя в локальной таблице.
+     * Эпоха может только увеличиваться.
+     *
+     * @param userId идентификатор пользователя
+     * @param epoch  эпоха
+     */
+    public void advance(Long userId, int epoch) {
+        if (userId == null || epoch <= getEpoch(userId)) {
+            return;
+        }
+        synchronized (this) {
+            Epochs current = epochs;
+            if (epoch > current.get(userId)) {
+                LongIntHashMap recent = current.recent().copy(1);
+                recent.put(userId, epoch);
+                epochs = recent.size() < MAX_RECENT
+                        ? new Epochs(current.base(), recent)
+                        : new Epochs(current.merged(recent, 0), new LongIntHashMap(0));
+            }
+        }
+    }
+
+    /**
+     * Применяет событие инвалидации с другого узла.
+     *
+     * @param event событие инвалидации
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.getType()) {
+            case TOKEN_EPOCH -> advance(event.getUserId(), event.getEpoch());
+            case ALL -> refresh();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Подтягивает эпохи, измененные с момента предыдущего обновления.
+     * При первом запуске загружает всех пользователей с ненулевой эпохой.
+     */
+    @Scheduled(fixedDelayString = "${TOKEN_EPOCH_REFRESH_INTERVAL:5000}")
+    public void refresh() {
+        Date since;
+        synchronized (this) {
+            since = new Date(Math.max(0, watermark.getTime() - REFRESH_OVERLAP_MS));
+        }
+        List<UserTokenEpoch> changed = userRepository.findTokenEpochsUpdatedAfter(since);
+        if (changed.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Epochs current = epochs;
+            LongIntHashMap updated = null;
+            for (UserTokenEpoch change : changed) {
+                if (change.getTokenEpoch() > current.get(change.getId())) {
+                    if (updated == null) {
+                        updated = current.merged(current.recent(), changed.size());
+                    }
+                    updated.put(change.getId(), change.getTokenEpoch());
+                }
+                if (change.getUpdatedAt() != null && change.getUpdatedAt().after(watermark)) {
+                    watermark = change.getUpdatedAt();
+                }
+            }
+            if (updated != null) {
+                epochs = new Epochs(updated, new LongIntHashMap(0));
+                log.debug("Обновлены эпохи токенов, пользователей с отзывом: {}", updated.size());
+            }
+        }
+    }
+
+    /**
+     * Опубликованное состояние: основная таблица и таблица последних
+     * изменений, значения в которой не меньше, чем в основной.
+     */
+    private record Epochs(LongIntHashMap base, LongIntHashMap recent) {
+
+        int get(long userId) {
+            int epoch = base.get(userId, 0);
+            return recent.size() == 0 ? epoch : Math.max(epoch, recent.get(userId, 0));
+        }
+
+        LongIntHashMap merged(LongIntHashMap recent, int extraSize) {
+            LongIntHashMap merged = base.copy(recent.size() + extraSize);
+            merged.putAll(recent);
+            return merged;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.services.tokens.refresh;
 
 import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.token.RotatedRefreshToken;
 import com.example.demo.models.user.User;
 
 public interface RefreshTokenService {
@@ -14,10 +15,12 @@ public interface RefreshTokenService {
 
     boolean isValidExpiration(RefreshToken refreshToken);
 
-    RefreshToken update(String token);
+    RotatedRefreshToken rotate(String token);
 
     RefreshToken update(User user);
 
+    RefreshToken issue(Long userId);
+
     void deleteAll();
 
     void deleteByUserId(Long id);
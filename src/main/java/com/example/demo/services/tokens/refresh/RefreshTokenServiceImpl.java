@@ -1,15 +1,20 @@
 package com.example.demo.services.tokens.refresh;
 
+import com.example.demo.config.datasource.ReadYourWrites;
 import com.example.demo.exceptions.jwt.RefreshTokenException;
+import com.example.demo.models.role.Role;
 import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.token.RefreshTokenOwner;
+import com.example.demo.models.token.RotatedRefreshToken;
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserPrincipal;
 import com.example.demo.repositories.token.RefreshTokenRepository;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.Optional;
@@ -29,6 +34,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         this.refreshTokenRepository = refreshTokenRepository;
     }
 
+    @Transactional(readOnly = true)
     public RefreshToken findByToken(String token) {
         Optional<RefreshToken> refreshToken = refreshTokenRepository.findByToken(token);
         if (refreshToken.isEmpty()) {
@@ -37,6 +43,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         return refreshToken.orElseThrow(() -> new RefreshTokenException("Рефреш-токен не найден"));
     }
 
+    @Transactional(readOnly = true)
     public RefreshToken findByUserId(Long id) {
         return refreshTokenRepository.findByUserId(id)
                 .orElseThrow(() -> new RefreshTokenException("Рефреш-токен не найден"));
@@ -53,6 +60,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     }
 
     private RefreshToken save(RefreshToken refreshToken) {
+        ReadYourWrites.pinPrimary();
         return refreshTokenRepository.save(refreshToken);
     }
 
@@ -60,18 +68,47 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         return refreshToken.getExpiration().after(new Date());
     }
 
-    @Transactional
-    public RefreshToken update(String token) {
-        RefreshToken existingToken = findByToken(token);
-        setExpiryAndToken(existingToken);
-        return save(existingToken);
+    /**
+     * Ротирует рефреш-токен одним запросом {@code UPDATE ... RETURNING}:
+     * проверка срока действия и замена токена выполняются атомарно,
+     * а пользователь не загружается — возвращаются только данные для
+     * аксес-токена.
+     *
+     * @param token текущий рефреш-токен
+     * @return новый токен и его владелец
+     * @throws RefreshTokenException если токен не найден или истек
+     */
+    public RotatedRefreshToken rotate(String token) {
+        String newToken = UUID.randomUUID().toString();
+        Date expiration = new Date(System.currentTimeMillis() + RefreshTokenExpiration);
+        ReadYourWrites.pinPrimary();
+        RefreshTokenOwner owner = refreshTokenRepository.rotate(token, newToken, expiration)
+                .orElseThrow(() -> new RefreshTokenException("Рефреш-токен не найден или истек"));
+        Role role = owner.getRole() != null ? Role.valueOf(owner.getRole()) : null;
+        UserPrincipal user = new UserPrincipal(owner.getId(), owner.getUsername(), null, role,
+                role != null ? role.getPermissions() : 0, owner.getTokenEpoch());
+        return new RotatedRefreshToken(newToken, expiration, user);
     }
 
-    @Transactional
     public RefreshToken update(User user) {
-        Optional<RefreshToken> existingToken = refreshTokenRepository.findByUserId(user.getId());
-        return existingToken.map(refreshToken ->
-                save(setExpiryAndToken(refreshToken))).orElseGet(() -> save(generate(user)));
+        RefreshToken refreshToken = issue(user.getId());
+        refreshToken.setUser(user);
+        return refreshToken;
+    }
+
+    /**
+     * Выпускает новый рефреш-токен пользователя одним запросом
+     * {@code INSERT ... ON CONFLICT (user_id) DO UPDATE}, без предварительного
+     * поиска существующего токена.
+     *
+     * @param userId идентификатор пользователя
+     * @return выпущенный токен без загруженного пользователя
+     */
+    public RefreshToken issue(Long userId) {
+        RefreshToken refreshToken = setExpiryAndToken(new RefreshToken());
+        ReadYourWrites.pinPrimary();
+        refreshTokenRepository.upsert(userId, refreshToken.getToken(), refreshToken.getExpiration());
+        return refreshToken;
     }
 
     private RefreshToken setExpiryAndToken(RefreshToken refreshToken) {
@@ -82,11 +119,13 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     @Transactional
     public void deleteAll() {
+        ReadYourWrites.pinPrimary();
         refreshTokenRepository.deleteAll();
     }
 
     @Transactional
     public void deleteByUserId(Long id) {
+        ReadYourWrites.pinPrimary();
         refreshTokenRepository.deleteByUserId(id);
     }
 }
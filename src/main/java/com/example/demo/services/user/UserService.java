@@ -1,7 +1,12 @@
 package com.example.demo.services.user;
 
+import com.example.demo.dtos.UserContactDto;
+import com.example.demo.dtos.UserDetailsDto;
 import com.example.demo.dtos.UserDto;
+import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.user.PatchedUser;
 import com.example.demo.models.user.User;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 
@@ -20,6 +25,16 @@ public interface UserService {
      */
     User createUser(User user);
 
+    /**
+     * Создает нового пользователя вместе с его рефреш-токеном
+     * за одно обращение к базе.
+     *
+     * @param user         сущность {@link User}, которая должна быть создана
+     * @param refreshToken рефреш-токен пользователя или null
+     * @return созданная сущность {@link User} с идентификатором
+     */
+    User createUser(User user, RefreshToken refreshToken);
+
     /**
      * Получает пользователя по его уникальному идентификатору.
      *
@@ -37,13 +52,30 @@ public interface UserService {
     User getUserByUsername(String username);
 
     /**
-     * Получает пользователя по его имени пользователя (username).
+     * Получает профиль пользователя по его имени пользователя (username)
+     * без загрузки сущности.
      *
      * @param username имя пользователя
-     * @return {@link User} с указанным именем пользователя
+     * @return {@link UserDto} с указанным именем пользователя
      */
     UserDto getUserDtoByUsername(String username);
 
+    /**
+     * Получает контактную информацию пользователя без загрузки сущности.
+     *
+     * @param username имя пользователя
+     * @return {@link UserContactDto} с указанным именем пользователя
+     */
+    UserContactDto getContactByUsername(String username);
+
+    /**
+     * Получает детальную информацию пользователя без загрузки сущности.
+     *
+     * @param username имя пользователя
+     * @return {@link UserDetailsDto} с указанным именем пользователя
+     */
+    UserDetailsDto getDetailsByUsername(String username);
+
     /**
      * Получает пользователя по его адресу электронной почты.
      *
@@ -82,6 +114,17 @@ public interface UserService {
      */
     UserDto updateByUsername(String username, UserDto userDto);
 
+    /**
+     * Частично обновляет пользователя одним запросом: изменяются только
+     * переданные (не null) поля, допустимые для этого сервиса.
+     *
+     * @param username имя пользователя
+     * @param version  ожидаемая версия записи или null без проверки версии
+     * @param userDto  DTO с изменениями
+     * @return состояние пользователя после обновления
+     */
+    PatchedUser patchByUsername(String username, Long version, UserDto userDto);
+
     /**
      * Удаляет пользователя по его уникальному идентификатору.
      *
@@ -96,6 +139,13 @@ public interface UserService {
      */
     void deleteUserByUsername(String username);
 
+    /**
+     * Отзывает все аксес- и рефреш-токены пользователя.
+     *
+     * @param id уникальный идентификатор пользователя
+     */
+    void revokeTokens(Long id);
+
     /**
      * Сохраняет информацию о пользователе. Может быть использован
      * для создания нового или обновления существующего пользователя.
@@ -114,6 +164,14 @@ public interface UserService {
      */
     UserDetailsService userDetailsService();
 
+    /**
+     * Предоставляет сервис для сохранения пересчитанного хеша пароля
+     * после успешного входа.
+     *
+     * @return экземпляр {@link UserDetailsPasswordService}
+     */
+    UserDetailsPasswordService userDetailsPasswordService();
+
     /**
      * Получает информацию о текущем аутентифицированном пользователе.
      *
@@ -0,0 +1,98 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.models.user.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш principal на Caffeine.
+ * <p>
+ * Найденные пользователи хранятся {@code PRINCIPAL_CACHE_TTL}, отсутствующие —
+ * более короткое время {@code PRINCIPAL_CACHE_NEGATIVE_TTL}, чтобы повторные
+ * запросы с токеном удаленного пользователя не доходили до базы данных,
+ * а вновь созданный пользователь быстро становился видимым. Размер,
+ * попадания и промахи публикуются в метриках под именем
+ * {@code user.principals}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "PRINCIPAL_CACHE_ENABLED", havingValue = "true")
+public class CaffeinePrincipalCache implements PrincipalCache {
+
+    private final Cache<String, Optional<UserPrincipal>> cache;
+
+    public CaffeinePrincipalCache(@Value("${PRINCIPAL_CACHE_SIZE:10000}") long maximumSize,
+                                  @Value("${PRINCIPAL_CACHE_TTL:60000}") long ttl,
+                                  @Value("${PRINCIPAL_CACHE_NEGATIVE_TTL:5000}") long negativeTtl,
+                                  MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PositiveAndNegativeTtl(
+                        TimeUnit.MILLISECONDS.toNanos(ttl),
+                        TimeUnit.MILLISECONDS.toNanos(negativeTtl)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.principals");
+    }
+
+    @Override
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, key -> Optional.ofNullable(loader.apply(key)))
+                .orElse(null);
+    }
+
+    @Override
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Время жизни записи зависит от того, найден ли пользователь.
+     */
+    private static class PositiveAndNegativeTtl
+            implements Expiry<String, Optional<UserPrincipal>> {
+
+        private final long ttlNanos;
+
+        private final long negativeTtlNanos;
+
+        PositiveAndNegativeTtl(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<UserPrincipal> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<UserPrincipal> value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<UserPrincipal> value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
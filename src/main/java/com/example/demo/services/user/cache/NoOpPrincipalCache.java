@@ -0,0 +1,29 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.models.user.UserPrincipal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Отключенный кэш principal: каждый вызов загружает пользователя.
+ */
+@Component
+@ConditionalOnProperty(name = "PRINCIPAL_CACHE_ENABLED", havingValue = "false",
+        matchIfMissing = true)
+public class NoOpPrincipalCache implements PrincipalCache {
+
+    @Override
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return loader.apply(username);
+    }
+
+    @Override
+    public void invalidate(String username) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+}
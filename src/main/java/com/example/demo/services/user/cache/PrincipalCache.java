@@ -0,0 +1,39 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.models.user.UserPrincipal;
+
+import java.util.function.Function;
+
+/**
+ * Кэш principal пользователей, загружаемых при аутентификации запросов.
+ * <p>
+ * Реализация выбирается настройкой {@code PRINCIPAL_CACHE_ENABLED}:
+ * {@link CaffeinePrincipalCache} либо {@link NoOpPrincipalCache}.
+ * Все пути изменения и удаления пользователя обязаны синхронно
+ * вызывать {@link #invalidate(String)}.
+ * </p>
+ */
+public interface PrincipalCache {
+
+    /**
+     * Возвращает principal из кэша либо загружает его.
+     *
+     * @param username имя пользователя
+     * @param loader   загрузка principal, возвращает null, если
+     *                 пользователь не найден
+     * @return principal или null, если пользователь не найден
+     */
+    UserPrincipal get(String username, Function<String, UserPrincipal> loader);
+
+    /**
+     * Удаляет запись пользователя из кэша.
+     *
+     * @param username имя пользователя
+     */
+    void invalidate(String username);
+
+    /**
+     * Удаляет все записи из кэша.
+     */
+    void invalidateAll();
+}
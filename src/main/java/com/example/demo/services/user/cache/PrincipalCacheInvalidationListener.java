@@ -0,0 +1,32 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.services.invalidation.InvalidationEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сбрасывает записи {@link PrincipalCache} по событиям инвалидации
+ * с других узлов.
+ */
+@Component
+public class PrincipalCacheInvalidationListener {
+
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheInvalidationListener(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * @param event событие инвалидации
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.getType()) {
+            case USER -> principalCache.invalidate(event.getUsername());
+            case ALL -> principalCache.invalidateAll();
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.config.datasource.ReadYourWrites;
+import com.example.demo.dtos.UserContactDto;
+import com.example.demo.dtos.UserDetailsDto;
+import com.example.demo.dtos.UserDto;
+import com.example.demo.models.user.UserPrincipal;
+import com.example.demo.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Объединяет одновременные чтения одного пользователя по username:
+ * пока запрос в базу выполняется, остальные потоки ждут его результат
+ * вместо собственного запроса.
+ * <p>
+ * Объединяются только неизменяемые principal и DTO-проекции.
+ * Сущности {@code User} не разделяются между потоками: сервисы их
+ * изменяют и сохраняют. Счетчики публикуются под именем
+ * {@code user.lookups}.
+ * </p>
+ * <p>
+ * Проекции читаются в читающих транзакциях и могут прийти с отстающей
+ * реплики. Запрос, закрепленный за основной базой ({@link ReadYourWrites}),
+ * к таким чтениям не присоединяется и читает сам, иначе он получил бы
+ * строку до собственной записи.
+ * </p>
+ */
+@Component
+public class UserLookupCoalescer {
+
+    private static final String METRIC = "user.lookups";
+
+    private final SingleFlight<String, UserPrincipal> principals;
+
+    private final SingleFlight<String, Optional<UserDto>> profiles;
+
+    private final SingleFlight<String, Optional<UserContactDto>> contacts;
+
+    private final SingleFlight<String, Optional<UserDetailsDto>> details;
+
+    public UserLookupCoalescer(@Value("${USER_LOOKUP_TIMEOUT:5000}") long timeout,
+                               MeterRegistry meterRegistry) {
+        this.principals = new SingleFlight<>(timeout, meterRegistry, METRIC, "principal");
+        this.profiles = new SingleFlight<>(timeout, meterRegistry, METRIC, "profile");
+        this.contacts = new SingleFlight<>(timeout, meterRegistry, METRIC, "contact");
+        this.details = new SingleFlight<>(timeout, meterRegistry, METRIC, "details");
+    }
+
+    public UserPrincipal principal(String username, Function<String, UserPrincipal> loader) {
+        return principals.execute(username, loader);
+    }
+
+    public Optional<UserDto> profile(String username,
+                                     Function<String, Optional<UserDto>> loader) {
+        return execute(profiles, username, loader);
+    }
+
+    public Optional<UserContactDto> contact(String username,
+                                            Function<String, Optional<UserContactDto>> loader) {
+        return execute(contacts, username, loader);
+    }
+
+    public Optional<UserDetailsDto> details(String username,
+                                            Function<String, Optional<UserDetailsDto>> loader) {
+        return execute(details, username, loader);
+    }
+
+    private static <V> V execute(SingleFlight<String, V> flight, String username,
+                                 Function<String, V> loader) {
+        return ReadYourWrites.isPrimaryPinned()
+                ? loader.apply(username)
+                : flight.execute(username, loader);
+    }
+
+    /**
+     * Отсоединяет идущие чтения пользователя после изменения его данных.
+     *
+     * @param username имя пользователя
+     */
+    public void forget(String username) {
+        if (username != null) {
+            principals.forget(username);
+            profiles.forget(username);
+            contacts.forget(username);
+            details.forget(username);
+        }
+    }
+}
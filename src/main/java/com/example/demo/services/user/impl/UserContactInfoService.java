@@ -1,29 +1,37 @@
 package com.example.demo.services.user.impl;
 
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserField;
+import com.example.demo.repositories.token.RefreshTokenRepository;
 import com.example.demo.repositories.user.UserRepository;
+import com.example.demo.services.invalidation.InvalidationBus;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
+import com.example.demo.services.user.cache.PrincipalCache;
+import com.example.demo.services.user.cache.UserLookupCoalescer;
 import com.example.demo.utils.UserMapper;
+import jakarta.validation.Validator;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Реализация сервиса для управления контактами пользователя.
  */
 @Service("userContactInfoService")
 public class UserContactInfoService extends UserProfileService {
     public UserContactInfoService(UserRepository userRepository,
+                                  RefreshTokenRepository refreshTokenRepository,
                                   PasswordEncoder passwordEncoder,
-                                  UserMapper userMapper) {
-        super(userRepository, passwordEncoder, userMapper);
-    }
-    public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
-    }
-    public User updateByUsername(String username, User user) {
-        User existingUser = getUserByUsername(username);
-        updateProfile(existingUser, user);
-        saveUser(existingUser);
-        return existingUser;
+                                  UserMapper userMapper,
+                                  TokenEpochService tokenEpochService,
+                                  PrincipalCache principalCache,
+                                  InvalidationBus invalidationBus,
+                                  UserLookupCoalescer lookups,
+                                  Validator validator) {
+        super(userRepository, refreshTokenRepository, passwordEncoder, userMapper,
+                tokenEpochService, principalCache, invalidationBus, lookups, validator);
     }
     protected User updateProfile(User existingUser, User user) {
         if (user.getPhoneNumber() != null)
@@ -33,7 +41,8 @@ public class UserContactInfoService extends UserProfileService {
         return existingUser;
     }
 
-    public User saveUser(User user) {
-        return userRepository.save(user);
+    @Override
+    protected Set<UserField> patchableFields() {
+        return EnumSet.of(UserField.PHONE_NUMBER, UserField.EMAIL);
     }
 }
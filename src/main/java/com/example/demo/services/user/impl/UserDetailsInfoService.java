@@ -1,8 +1,14 @@
 package com.example.demo.services.user.impl;
 
 import com.example.demo.models.user.User;
+import com.example.demo.repositories.token.RefreshTokenRepository;
 import com.example.demo.repositories.user.UserRepository;
+import com.example.demo.services.invalidation.InvalidationBus;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
+import com.example.demo.services.user.cache.PrincipalCache;
+import com.example.demo.services.user.cache.UserLookupCoalescer;
 import com.example.demo.utils.UserMapper;
+import jakarta.validation.Validator;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,9 +18,16 @@ import org.springframework.stereotype.Service;
 @Service("userDetailsInfoService")
 public class UserDetailsInfoService extends UserProfileService {
     public UserDetailsInfoService(UserRepository userRepository,
+                                  RefreshTokenRepository refreshTokenRepository,
                                   PasswordEncoder passwordEncoder,
-                                  UserMapper userMapper) {
-        super(userRepository, passwordEncoder, userMapper);
+                                  UserMapper userMapper,
+                                  TokenEpochService tokenEpochService,
+                                  PrincipalCache principalCache,
+                                  InvalidationBus invalidationBus,
+                                  UserLookupCoalescer lookups,
+                                  Validator validator) {
+        super(userRepository, refreshTokenRepository, passwordEncoder, userMapper,
+                tokenEpochService, principalCache, invalidationBus, lookups, validator);
     }
 
     @Override
@@ -32,7 +45,7 @@ public class UserDetailsInfoService extends UserProfileService {
         if (user.getPhoto() != null)
             existingUser.setPhoto(user.getPhoto());
         if (user.getPassword() != null)
-            existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
+            changePassword(existingUser, user.getPassword());
         return existingUser;
     }
 
@@ -1,19 +1,51 @@
 package com.example.demo.services.user.impl;
 
+import com.example.demo.config.datasource.ReadYourWrites;
+import com.example.demo.dtos.UserContactDto;
+import com.example.demo.dtos.UserDetailsDto;
 import com.example.demo.dtos.UserDto;
 import com.example.demo.exceptions.user.UserAlreadyExistedException;
+import com.example.demo.exceptions.request.WrongRequestException;
 import com.example.demo.exceptions.user.UserNotFoundException;
+import com.example.demo.exceptions.user.VersionConflictException;
+import com.example.demo.models.token.RefreshToken;
+import com.example.demo.models.user.PatchedUser;
 import com.example.demo.models.user.User;
+import com.example.demo.models.user.UserField;
+import com.example.demo.models.user.UserPrincipal;
+import com.example.demo.repositories.token.RefreshTokenRepository;
 import com.example.demo.repositories.user.UserRepository;
+import com.example.demo.services.invalidation.InvalidationBus;
+import com.example.demo.services.invalidation.InvalidationEvent;
+import com.example.demo.services.tokens.epoch.TokenEpochService;
 import com.example.demo.services.user.UserService;
+import com.example.demo.services.user.cache.PrincipalCache;
+import com.example.demo.services.user.cache.UserLookupCoalescer;
+import com.example.demo.utils.TransactionHooks;
 import com.example.demo.utils.UserMapper;
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Реализация сервиса для управления данными пользователя.
@@ -22,17 +54,42 @@ import org.springframework.stereotype.Service;
  */
 @Service("userProfileService")
 public class UserProfileService implements
-        UserService, UserDetailsService {
+        UserService, UserDetailsService, UserDetailsPasswordService {
 
     final UserRepository userRepository;
+    final RefreshTokenRepository refreshTokenRepository;
     final PasswordEncoder passwordEncoder;
     final UserMapper userMapper;
+    final TokenEpochService tokenEpochService;
+    final PrincipalCache principalCache;
+    final InvalidationBus invalidationBus;
+    final UserLookupCoalescer lookups;
+    final Validator validator;
+
+    @Value("${PROFILE_UPDATE_MAX_ATTEMPTS:5}")
+    int updateMaxAttempts;
+
+    @Value("${PROFILE_UPDATE_BACKOFF:10}")
+    long updateBackoff;
+
+    @Value("${PROFILE_UPDATE_MAX_BACKOFF:200}")
+    long updateMaxBackoff;
 
-    public UserProfileService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder,
-                              UserMapper userMapper) {
+    public UserProfileService(UserRepository userRepository,
+                              RefreshTokenRepository refreshTokenRepository,
+                              @Lazy PasswordEncoder passwordEncoder,
+                              UserMapper userMapper, TokenEpochService tokenEpochService,
+                              PrincipalCache principalCache, InvalidationBus invalidationBus,
+                              UserLookupCoalescer lookups, Validator validator) {
         this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
         this.passwordEncoder = passwordEncoder;
         this.userMapper = userMapper;
+        this.tokenEpochService = tokenEpochService;
+        this.principalCache = principalCache;
+        this.invalidationBus = invalidationBus;
+        this.lookups = lookups;
+        this.validator = validator;
     }
 
     /**
@@ -42,12 +99,33 @@ public class UserProfileService implements
      * @return пользователь.
      */
     public User createUser(User user) {
-        if (!userRepository.findByUsernameOrEmail
-                (user.getUsername(), user.getEmail()).isEmpty()) {
-            throw new UserAlreadyExistedException("Пользователь с таким логином или " +
-                            "электронной почтой уже существует.");
+        return createUser(user, null);
+    }
+
+    /**
+     * Создает нового пользователя вместе с рефреш-токеном одним запросом
+     * {@code INSERT ... ON CONFLICT DO NOTHING}. Занятость логина и почты
+     * проверяет сама база, поэтому одновременные регистрации не гоняются
+     * между проверкой и вставкой. Вставка идет в обход JPA, поэтому
+     * ограничения полей {@link User} проверяются заранее.
+     *
+     * @param user         сущность, которая должна быть создана.
+     * @param refreshToken рефреш-токен пользователя или null.
+     * @return пользователь с присвоенным идентификатором.
+     * @throws WrongRequestException       если значения полей некорректны.
+     * @throws UserAlreadyExistedException если логин или почта уже заняты.
+     */
+    public User createUser(User user, RefreshToken refreshToken) {
+        requireValid(validator.validate(user));
+        Long id = userRepository.insertIfAbsent(user, refreshToken)
+                .orElseThrow(() -> new UserAlreadyExistedException("Пользователь с таким логином или " +
+                        "электронной почтой уже существует."));
+        user.setId(id);
+        if (refreshToken != null) {
+            refreshToken.setUser(user);
         }
-        return saveUser(user);
+        invalidateUser(user.getUsername());
+        return user;
     }
 
     /**
@@ -57,6 +135,7 @@ public class UserProfileService implements
      * @return пользователь с указанным идентификатором.
      * @throws UserNotFoundException если пользователь с указанным ID не существует.
      */
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException
@@ -69,18 +148,56 @@ public class UserProfileService implements
      * @param username имя пользователя.
      * @return пользователь с указанным именем,
      */
+    @Transactional(readOnly = true)
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     /**
-     * Получает сущность пользователя UserDto по его имени пользователя.
+     * Получает профиль пользователя UserDto по его имени пользователя.
+     * Выбираются только нужные столбцы, сущность не загружается.
+     * Одновременные запросы одного пользователя выполняются одним запросом.
      *
      * @param username имя пользователя.
      * @return пользователь с указанным именем,
+     * @throws UserNotFoundException если пользователь не существует.
      */
+    @Transactional(readOnly = true)
     public UserDto getUserDtoByUsername(String username) {
-        return userMapper.userToUserDto(getUserByUsername(username));
+        return lookups.profile(username, userRepository::findUserDtoByUsername)
+                .orElseThrow(() -> userNotFound(username));
+    }
+
+    /**
+     * Получает контактную информацию пользователя.
+     * Выбираются только нужные столбцы, сущность не загружается.
+     *
+     * @param username имя пользователя.
+     * @return контактная информация пользователя.
+     * @throws UserNotFoundException если пользователь не существует.
+     */
+    @Transactional(readOnly = true)
+    public UserContactDto getContactByUsername(String username) {
+        return lookups.contact(username, userRepository::findContactByUsername)
+                .orElseThrow(() -> userNotFound(username));
+    }
+
+    /**
+     * Получает детальную информацию пользователя.
+     * Выбираются только нужные столбцы, сущность не загружается.
+     *
+     * @param username имя пользователя.
+     * @return детальная информация пользователя.
+     * @throws UserNotFoundException если пользователь не существует.
+     */
+    @Transactional(readOnly = true)
+    public UserDetailsDto getDetailsByUsername(String username) {
+        return lookups.details(username, userRepository::findDetailsByUsername)
+                .orElseThrow(() -> userNotFound(username));
+    }
+
+    private static UserNotFoundException userNotFound(String username) {
+        return new UserNotFoundException("Пользователь " + username + " не найден");
     }
 
 
@@ -90,6 +207,7 @@ public class UserProfileService implements
      * @param email адрес электронной почты пользователя.
      * @return пользователь с указанным адресом электронной почты.
      */
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email).orElseThrow(
                 () -> new UserNotFoundException
@@ -104,10 +222,7 @@ public class UserProfileService implements
      * @return обновленный пользователь.
      */
     public User updateUserById(Long id, User user) {
-        User existingUser = getUserById(id);
-        updateProfile(existingUser, user);
-        saveUser(existingUser);
-        return getUserById(id);
+        return updateWithRetry(() -> getUserById(id), user);
     }
 
     /**
@@ -118,10 +233,7 @@ public class UserProfileService implements
      * @return обновленный пользователь.
      */
     public User updateByUsername(String username, User user) {
-        User existingUser = getUserByUsername(username);
-        updateProfile(existingUser, user);
-        User savedUser = saveUser(existingUser);
-        return savedUser;
+        return updateWithRetry(() -> requireByUsername(username), user);
     }
 
     /**
@@ -132,48 +244,304 @@ public class UserProfileService implements
      * @return обновленный пользователь.
      */
     public UserDto updateByUsername(String username, UserDto userDto) {
-        User existingUser = getUserByUsername(username);
-        updateProfile(existingUser, userDto);
-        return userMapper.userToUserDto(saveUser(existingUser));
+        return userMapper.userToUserDto(
+                updateByUsername(username, userMapper.userDtoToUser(userDto)));
+    }
+
+    /**
+     * Применяет изменения к пользователю и сохраняет его, разрешая
+     * конфликты оптимистической блокировки.
+     * <p>
+     * Если запись успела изменить другая транзакция, пользователь
+     * перечитывается, и изменения применяются заново после короткой паузы.
+     * Так наборы полей, которые не пересекаются (например, контакты и
+     * детальная информация), объединяются автоматически. Если другая
+     * транзакция изменила хотя бы одно из полей этого запроса или
+     * попытки закончились, выбрасывается {@link VersionConflictException}.
+     * </p>
+     *
+     * @param loader  загружает актуальное состояние пользователя
+     * @param changes сущность с изменениями
+     * @return сохраненный пользователь
+     * @throws VersionConflictException если конфликт не удалось разрешить
+     * @throws WrongRequestException    если изменения нарушают ограничения {@link User}
+     */
+    protected User updateWithRetry(Supplier<User> loader, User changes) {
+        requireValid(validator.validate(changes));
+        ReadYourWrites.pinPrimary();
+        Set<UserField> fields = changedFields(changes);
+        User existingUser = loader.get();
+        Map<UserField, Object> base = snapshot(existingUser, fields);
+        for (int attempt = 1; ; attempt++) {
+            updateProfile(existingUser, changes);
+            try {
+                return saveUser(existingUser);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= updateMaxAttempts) {
+                    throw versionConflict(existingUser.getUsername());
+                }
+                backoff(attempt);
+                existingUser = loader.get();
+                if (!snapshot(existingUser, fields).equals(base)) {
+                    throw versionConflict(existingUser.getUsername());
+                }
+            }
+        }
+    }
+
+    /**
+     * Поля, которые меняет запрос: разрешенные этому сервису
+     * и переданные не пустыми.
+     */
+    private Set<UserField> changedFields(User changes) {
+        Set<UserField> fields = EnumSet.noneOf(UserField.class);
+        for (UserField field : patchableFields()) {
+            if (field.read(changes) != null) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Map<UserField, Object> snapshot(User user, Set<UserField> fields) {
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        for (UserField field : fields) {
+            values.put(field, field.read(user));
+        }
+        return values;
+    }
+
+    /**
+     * Экспоненциальная пауза со случайным разбросом, чтобы
+     * конкурирующие запросы не повторялись одновременно.
+     */
+    private void backoff(int attempt) {
+        long limit = Math.min(updateMaxBackoff, updateBackoff << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limit / 2, limit + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VersionConflictException("Обновление пользователя прервано");
+        }
+    }
+
+    private User requireByUsername(String username) {
+        User user = getUserByUsername(username);
+        if (user == null) {
+            throw userNotFound(username);
+        }
+        return user;
+    }
+
+    /**
+     * Отклоняет запрос, если значения нарушают ограничения {@link User}.
+     *
+     * @param violations нарушения ограничений
+     * @throws WrongRequestException если нарушения есть
+     */
+    private static void requireValid(Set<ConstraintViolation<User>> violations) {
+        if (!violations.isEmpty()) {
+            throw new WrongRequestException("Ошибка: некорректные данные, проверьте поля запроса. " +
+                    violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private static VersionConflictException versionConflict(String username) {
+        return new VersionConflictException("Пользователь " + username +
+                " был изменен, получите актуальную версию");
+    }
+
+    /**
+     * Частично обновляет пользователя одним запросом
+     * {@code UPDATE ... RETURNING} без предварительной загрузки сущности.
+     * Конфликт версий определяется по столбцу {@code version}.
+     * Значения проверяются по ограничениям полей {@link User} до построения
+     * запроса, занятость почты проверяет уникальный индекс.
+     *
+     * @param username имя пользователя.
+     * @param version  ожидаемая версия записи или null без проверки версии.
+     * @param userDto  DTO с изменениями.
+     * @return состояние пользователя после обновления.
+     * @throws WrongRequestException       если не передано ни одного поля
+     *                                     или значение некорректно.
+     * @throws VersionConflictException    если версия записи не совпала.
+     * @throws UserNotFoundException       если пользователь не существует.
+     * @throws UserAlreadyExistedException если почта уже занята.
+     */
+    @Transactional
+    public PatchedUser patchByUsername(String username, Long version, UserDto userDto) {
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        Set<ConstraintViolation<User>> violations = new HashSet<>();
+        for (UserField field : patchableFields()) {
+            Object value = field.read(userDto);
+            if (value != null) {
+                violations.addAll(validator.validateValue(User.class, field.getProperty(), value));
+                values.put(field, value);
+            }
+        }
+        if (values.isEmpty()) {
+            throw new WrongRequestException("Ошибка: не передано ни одного поля для обновления");
+        }
+        requireValid(violations);
+        values.computeIfPresent(UserField.PASSWORD,
+                (field, password) -> passwordEncoder.encode((String) password));
+        PatchedUser patched;
+        try {
+            patched = userRepository.patchByUsername(username, version, values)
+                    .orElseThrow(() -> userRepository.existsByUsername(username)
+                            ? versionConflict(username) : userNotFound(username));
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistedException("Пользователь с такой " +
+                    "электронной почтой уже существует.");
+        }
+        invalidateUser(username);
+        if (values.containsKey(UserField.PASSWORD)) {
+            Long id = patched.getUser().getId();
+            TransactionHooks.afterCommit(() -> tokenEpochService.advance(id, patched.getTokenEpoch()));
+            invalidationBus.publish(InvalidationEvent.tokenEpoch(id, patched.getTokenEpoch()));
+        }
+        return patched;
     }
 
     /**
-     * Удаляет пользователя по идентификатору.
+     * Поля, которые этот сервис разрешает изменять частичным обновлением.
+     * Совпадают с полями, которые копирует {@link #updateProfile(User, User)}.
+     *
+     * @return набор полей
+     */
+    protected Set<UserField> patchableFields() {
+        return EnumSet.of(UserField.FIRSTNAME, UserField.SURNAME, UserField.PATRONYMIC,
+                UserField.PHONE_NUMBER, UserField.BIRTH_DATE, UserField.PHOTO,
+                UserField.PASSWORD);
+    }
+
+    /**
+     * Удаляет пользователя по идентификатору вместе с его рефреш-токеном.
      *
      * @param id идентификатор пользователя для удаления.
      */
+    @Transactional
     public void deleteUserById(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            refreshTokenRepository.deleteByUserId(id);
+            userRepository.delete(user);
+            invalidateUser(user.getUsername());
+        });
     }
 
     /**
-     * Удаляет пользователя по имени пользователя.
+     * Удаляет пользователя по имени пользователя вместе с его рефреш-токеном.
      *
      * @param username имя пользователя, которого нужно удалить.
      */
     @Transactional
     public void deleteUserByUsername(String username) {
+        refreshTokenRepository.deleteByUsername(username);
         userRepository.deleteByUsername(username);
+        invalidateUser(username);
     }
 
     /**
-     * Сохраните сущности в БД
+     * Сохраните сущности в БД. Все пути создания и изменения пользователя
+     * проходят через этот метод, поэтому здесь же сбрасываются
+     * кэши на этом и остальных узлах.
      *
      * @param user пользователь для сохранения
      * @return сохраненный пользователь.
      */
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        invalidateUser(savedUser.getUsername());
+        if (savedUser.getTokenEpoch() > tokenEpochService.getEpoch(savedUser.getId())) {
+            TransactionHooks.afterCommit(() ->
+                    tokenEpochService.advance(savedUser.getId(), savedUser.getTokenEpoch()));
+            invalidationBus.publish(InvalidationEvent.tokenEpoch(
+                    savedUser.getId(), savedUser.getTokenEpoch()));
+        }
+        return savedUser;
+    }
+
+    /**
+     * Сбрасывает кэшированный principal пользователя на этом узле
+     * и сообщает об изменении остальным узлам. Дальнейшие чтения
+     * текущего запроса идут в основную базу, а не на реплики.
+     * <p>
+     * Локальный кэш сбрасывается после фиксации транзакции: если сбросить
+     * его раньше, параллельный запрос успеет снова закэшировать старые
+     * данные. Уведомление {@code pg_notify} и так доставляется при фиксации.
+     * </p>
+     *
+     * @param username имя пользователя
+     */
+    protected void invalidateUser(String username) {
+        ReadYourWrites.pinPrimary();
+        invalidationBus.publish(InvalidationEvent.user(username));
+        TransactionHooks.afterCommit(() -> {
+            lookups.forget(username);
+            principalCache.invalidate(username);
+        });
+    }
+
+    /**
+     * Отзывает все токены пользователя (выход на всех устройствах).
+     * Кэшированный принципал сбрасывается, иначе повторный вход выпустил бы
+     * токен со старой эпохой.
+     *
+     * @param id идентификатор пользователя
+     */
+    @Transactional
+    public void revokeTokens(Long id) {
+        ReadYourWrites.pinPrimary();
+        tokenEpochService.revokeAll(id);
+        userRepository.findUsernameById(id).ifPresent(this::invalidateUser);
     }
 
     /**
      * Предоставляет сервис UserServiceDetailsService,
      * который загружает данные о пользователях по имени пользователя.
+     * Используется при входе и аутентификации запросов.
      *
      * @return экземпляр UserDetailsService.
      */
     public UserDetailsService userDetailsService() {
-        return this::getUserByUsername;
+        return this;
+    }
+
+    /**
+     * Предоставляет сервис, сохраняющий пересчитанный при входе хеш пароля.
+     *
+     * @return экземпляр UserDetailsPasswordService.
+     */
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return this;
+    }
+
+    /**
+     * Сохраняет хеш пароля, пересчитанный после успешного входа
+     * (другая стоимость BCrypt или устаревший формат).
+     *
+     * @param user        пользователь, прошедший проверку пароля
+     * @param newPassword новый хеш того же пароля
+     * @return пользователь с новым хешем
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        invalidateUser(user.getUsername());
+        if (user instanceof UserPrincipal principal) {
+            return new UserPrincipal(principal.getId(), principal.getUsername(), newPassword,
+                    principal.getRole(), principal.getPermissions(), principal.getEpoch());
+        }
+        return loadUserByUsername(user.getUsername());
+    }
+
+    private UserPrincipal loadPrincipal(String username) {
+        User user = getUserByUsername(username);
+        return user != null ? UserPrincipal.from(user) : null;
     }
 
     /**
@@ -181,6 +549,7 @@ public class UserProfileService implements
      *
      * @return текущий аутентифицированный пользователь.
      */
+    @Transactional(readOnly = true)
     public User getCurrentUser() {
         var username = SecurityContextHolder
                 .getContext()
@@ -190,20 +559,27 @@ public class UserProfileService implements
     }
 
     /**
-     * Загружает данные пользователя по username.
+     * Загружает данные пользователя по username в виде неизменяемого
+     * {@link UserPrincipal} через {@link PrincipalCache}. Одновременные
+     * промахи кэша по одному username объединяются в один запрос.
+     * <p>
+     * Транзакция не читающая: принципал читается из основной базы, чтобы
+     * отстающая реплика не положила в кэш старый хеш пароля или роль.
+     * </p>
      *
-     * @param username адрес электронной почты пользователя.
+     * @param username имя пользователя.
      * @return UserDetails пользователя.
+     * @throws UsernameNotFoundException если пользователь не найден
      */
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) {
-        User user = userRepository.findByUsername(username);
-
-        return User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .role(user.getRole())
-                .build();
+        UserPrincipal principal = principalCache.get(username,
+                key -> lookups.principal(key, this::loadPrincipal));
+        if (principal == null) {
+            throw new UsernameNotFoundException("Пользователь " + username + " не найден");
+        }
+        return principal;
     }
 
     protected User updateProfile(User existingUser, User user) {
@@ -220,13 +596,19 @@ public class UserProfileService implements
         if (user.getPhoto() != null)
             existingUser.setPhoto(user.getPhoto());
         if (user.getPassword() != null)
-            existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
+            changePassword(existingUser, user.getPassword());
         return existingUser;
     }
 
-    protected UserDto updateProfile(User existingUser, UserDto userDto) {
-        User user = userMapper.userDtoToUser(userDto);
-        return userMapper.userToUserDto(updateProfile(existingUser, user));
+    /**
+     * Меняет пароль пользователя и отзывает выпущенные ему токены.
+     *
+     * @param existingUser пользователь
+     * @param password     новый пароль
+     */
+    protected void changePassword(User existingUser, String password) {
+        existingUser.setPassword(passwordEncoder.encode(password));
+        existingUser.setTokenEpoch(existingUser.getTokenEpoch() + 1);
     }
 
 }
@@ -0,0 +1,138 @@
+package com.example.demo.utils;
+
+/**
+ * Компактная хеш-таблица {@code long → int} без упаковки примитивов.
+ * <p>
+ * Открытая адресация с линейным пробированием; ключи и значения хранятся
+ * в двух параллельных массивах. Удаление не поддерживается. Класс не
+ * потокобезопасен — синхронизацию обеспечивает вызывающий код.
+ * </p>
+ */
+public class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private boolean[] used;
+
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Создает независимую копию таблицы.
+     *
+     * @param extraSize ожидаемое количество новых ключей
+     * @return копия таблицы
+     */
+    public LongIntHashMap copy(int extraSize) {
+        LongIntHashMap copy = new LongIntHashMap(size + extraSize);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                copy.put(keys[i], values[i]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Записывает все пары другой таблицы поверх этой.
+     *
+     * @param other таблица с новыми значениями
+     */
+    public void putAll(LongIntHashMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.used[i]) {
+                put(other.keys[i], other.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Возвращает значение по ключу.
+     *
+     * @param key          ключ
+     * @param defaultValue значение, если ключ отсутствует
+     * @return значение или {@code defaultValue}
+     */
+    public int get(long key, int defaultValue) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Записывает значение по ключу.
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    public void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * @return количество ключей
+     */
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
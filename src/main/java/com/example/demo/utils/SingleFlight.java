@@ -0,0 +1,123 @@
+package com.example.demo.utils;
+
+import com.example.demo.exceptions.request.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Объединяет одновременные вычисления по одному ключу (single flight).
+ * <p>
+ * Первый поток выполняет загрузку сам, остальные потоки с тем же ключом
+ * ждут его результат не дольше заданного времени и получают то же значение
+ * или то же исключение. Результат не кэшируется: как только загрузка
+ * завершилась, следующий вызов выполняет ее заново.
+ * </p>
+ * <p>
+ * Счетчик {@code <name>} с тегом {@code result} показывает, сколько вызовов
+ * выполнено ({@code executed}), объединено с уже идущим ({@code collapsed})
+ * и не дождалось результата ({@code timeout}).
+ * </p>
+ *
+ * @param <K> тип ключа
+ * @param <V> тип результата
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final long timeout;
+
+    private final Counter executed;
+
+    private final Counter collapsed;
+
+    private final Counter timedOut;
+
+    /**
+     * @param timeout       сколько ждать чужую загрузку, мс
+     * @param meterRegistry реестр метрик
+     * @param name          имя счетчика
+     * @param kind          значение тега {@code kind}, различает загрузки
+     */
+    public SingleFlight(long timeout, MeterRegistry meterRegistry, String name, String kind) {
+        this.timeout = timeout;
+        this.executed = counter(meterRegistry, name, kind, "executed");
+        this.collapsed = counter(meterRegistry, name, kind, "collapsed");
+        this.timedOut = counter(meterRegistry, name, kind, "timeout");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name,
+                                   String kind, String result) {
+        return Counter.builder(name)
+                .tag("kind", kind)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает результат загрузки по ключу, присоединяясь к уже идущей.
+     *
+     * @param key    ключ
+     * @param loader загрузка, выполняется в вызывающем потоке
+     * @return результат загрузки
+     * @throws ServiceUnavailableException если чужая загрузка не завершилась вовремя
+     */
+    public V execute(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            collapsed.increment();
+            return await(inFlight);
+        }
+        executed.increment();
+        try {
+            V value = loader.apply(key);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Отсоединяет идущую загрузку от ключа: следующие вызовы не будут
+     * к ней присоединяться. Нужно после изменения данных, чтобы не получить
+     * результат запроса, начатого до изменения.
+     *
+     * @param key ключ
+     */
+    public void forget(K key) {
+        calls.remove(key);
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new ServiceUnavailableException("Превышено время ожидания загрузки данных");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Ожидание загрузки данных прервано");
+        }
+    }
+}
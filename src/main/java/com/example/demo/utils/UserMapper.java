@@ -28,7 +28,7 @@ public abstract class UserMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "version", ignore = true)
-    @Mapping(target = "refreshToken", ignore = true)
+    @Mapping(target = "tokenEpoch", ignore = true)
     public abstract User userDtoToUser(UserDto userDto);
 
 }
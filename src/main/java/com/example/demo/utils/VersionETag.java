@@ -0,0 +1,46 @@
+package com.example.demo.utils;
+
+import com.example.demo.exceptions.request.WrongRequestException;
+
+/**
+ * Преобразование версии записи в ETag и обратно.
+ * ETag имеет вид {@code "<версия>"}.
+ */
+public final class VersionETag {
+
+    private VersionETag() {
+    }
+
+    /**
+     * @param version версия записи
+     * @return значение ETag
+     */
+    public static String format(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Извлекает ожидаемую версию из заголовка If-Match.
+     *
+     * @param ifMatch значение заголовка
+     * @return версия или null, если заголовок отсутствует или равен {@code *}
+     * @throws WrongRequestException если заголовок не является ETag версии
+     */
+    public static Long parse(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new WrongRequestException("Ошибка: некорректный заголовок If-Match");
+        }
+    }
+}
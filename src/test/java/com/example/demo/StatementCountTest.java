@@ -0,0 +1,120 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет количество SQL-запросов на горячих путях аутентификации.
+ * Кэши principal и токенов отключены, чтобы каждый запрос доходил до базы.
+ */
+@SpringBootTest(properties = {
+        "STATELESS_PRINCIPAL=false",
+        "PRINCIPAL_CACHE_ENABLED=false",
+        "ACCESS_TOKEN_CACHE_ENABLED=false",
+        "TOKEN_EPOCH_REFRESH_INTERVAL=3600000",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.demo.StatementCounter"
+})
+@AutoConfigureMockMvc
+class StatementCountTest {
+
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String username;
+
+    private String accessToken;
+
+    private String refreshToken;
+
+    @BeforeEach
+    void signUp() throws Exception {
+        username = "stmt_" + UUID.randomUUID().toString().substring(0, 8);
+        String response = mockMvc.perform(post("/api/v1/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "username", username,
+                                "email", username + "@example.com",
+                                "password", PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        accessToken = objectMapper.readTree(response).get("accessToken").asText();
+        refreshToken = objectMapper.readTree(response).get("refreshToken").asText();
+    }
+
+    @Test
+    void filterLoadsUserWithSingleStatement() throws Exception {
+        StatementCounter.start();
+        mockMvc.perform(get("/api/v1/test/user")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        assertThat(StatementCounter.stop()).isEqualTo(1);
+    }
+
+    @Test
+    void profileLoadsUserWithoutRefreshToken() throws Exception {
+        StatementCounter.start();
+        mockMvc.perform(get("/api/v1/user")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        // principal в фильтре и сущность пользователя для профиля
+        assertThat(StatementCounter.stop()).isEqualTo(2);
+    }
+
+    @Test
+    void loginReadsUserOnceAndWritesTokenOnce() throws Exception {
+        StatementCounter.start();
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "username", username,
+                                "password", PASSWORD))))
+                .andExpect(status().isOk());
+
+        // principal для проверки пароля и upsert рефреш-токена
+        assertThat(StatementCounter.stop()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshRotatesTokenWithSingleStatement() throws Exception {
+        StatementCounter.start();
+        String response = mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "refreshToken", refreshToken))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // UPDATE ... RETURNING проверяет срок, меняет токен и возвращает владельца
+        assertThat(StatementCounter.stop()).isEqualTo(1);
+        assertThat(objectMapper.readTree(response).get("refreshToken").asText())
+                .isNotEqualTo(refreshToken);
+
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "refreshToken", refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+}
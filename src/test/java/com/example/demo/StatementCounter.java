@@ -0,0 +1,44 @@
+package com.example.demo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Считает SQL-запросы, выполненные Hibernate в потоке теста.
+ * Подключается настройкой
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * Запросы фоновых задач других потоков не учитываются.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private static volatile Thread target;
+
+    /**
+     * Начинает подсчет запросов текущего потока.
+     */
+    public static void start() {
+        COUNT.set(0);
+        target = Thread.currentThread();
+    }
+
+    /**
+     * Завершает подсчет.
+     *
+     * @return количество запросов с момента {@link #start()}
+     */
+    public static int stop() {
+        target = null;
+        return COUNT.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == target) {
+            COUNT.incrementAndGet();
+        }
+        return sql;
+    }
+}
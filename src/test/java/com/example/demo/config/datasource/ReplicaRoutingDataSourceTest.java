@@ -0,0 +1,116 @@
+package com.example.demo.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет маршрутизацию соединений между основной базой и двумя
+ * репликами и закрепление чтений за основной базой после записи.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private Instance primary;
+
+    private Replica first;
+
+    private Replica second;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        primary = new Instance();
+        first = new Replica("replica-1", new Instance());
+        second = new Replica("replica-2", new Instance());
+        first.update(0, true);
+        second.update(0, true);
+        routing = new ReplicaRoutingDataSource(primary, List.of(first, second),
+                ReplicaSelection.ROUND_ROBIN);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void writingTransactionUsesPrimary() throws Exception {
+        assertThat(routing.getConnection()).isSameAs(primary.connection);
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection a = routing.getConnection();
+        Connection b = routing.getConnection();
+
+        assertThat(List.of(a, b)).containsExactlyInAnyOrder(
+                connection(first), connection(second));
+    }
+
+    @Test
+    void readAfterWriteIsPinnedToPrimary() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isNotSameAs(primary.connection);
+
+        ReadYourWrites.pinPrimary();
+
+        assertThat(routing.getConnection()).isSameAs(primary.connection);
+        assertThat(routing.getConnection()).isSameAs(primary.connection);
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() throws Exception {
+        first.update(10_000, false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(connection(second));
+        assertThat(routing.getConnection()).isSameAs(connection(second));
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutAvailableReplicas() throws Exception {
+        first.update(10_000, false);
+        second.update(-1, false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(primary.connection);
+    }
+
+    private static Connection connection(Replica replica) {
+        return ((Instance) replica.getDataSource()).connection;
+    }
+
+    /**
+     * Экземпляр базы, который всегда отдает одно и то же соединение.
+     * Пул Hikari не запускается.
+     */
+    private static class Instance extends HikariDataSource {
+
+        private final Connection connection = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "connection@" + System.identityHashCode(proxy);
+                    default -> null;
+                });
+
+        @Override
+        public Connection getConnection() {
+            return connection;
+        }
+    }
+}
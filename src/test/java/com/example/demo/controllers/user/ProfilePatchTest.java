@@ -0,0 +1,112 @@
+package com.example.demo.controllers.user;
+
+import com.example.demo.dtos.UserDto;
+import com.example.demo.exceptions.user.UserAlreadyExistedException;
+import com.example.demo.services.user.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет частичное обновление профиля: конфликт версий по If-Match,
+ * проверку значений и занятую почту.
+ */
+@SpringBootTest(properties = "TOKEN_EPOCH_REFRESH_INTERVAL=3600000")
+@AutoConfigureMockMvc
+class ProfilePatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("userContactInfoService")
+    private UserService contactService;
+
+    private String username;
+
+    private String accessToken;
+
+    @BeforeEach
+    void signUp() throws Exception {
+        username = "patch_" + UUID.randomUUID().toString().substring(0, 8);
+        accessToken = signUp(username);
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithConflict() throws Exception {
+        String etag = patchProfile(null, Map.of("surname", "Ivanov"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        String next = patchProfile(etag, Map.of("surname", "Petrov"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(next).isNotEqualTo(etag);
+
+        patchProfile(etag, Map.of("surname", "Sidorov"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void invalidValueIsRejectedBeforeUpdate() throws Exception {
+        patchProfile(null, Map.of("phoneNumber", "not a phone"))
+                .andExpect(status().isForbidden());
+        patchProfile(null, Map.of("surname", "x".repeat(256)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void takenEmailIsReportedAsExistingUser() throws Exception {
+        String other = "patch_" + UUID.randomUUID().toString().substring(0, 8);
+        signUp(other);
+        UserDto changes = new UserDto();
+        changes.setEmail(other + "@example.com");
+
+        assertThatThrownBy(() -> contactService.patchByUsername(username, null, changes))
+                .isInstanceOf(UserAlreadyExistedException.class);
+    }
+
+    private ResultActions patchProfile(String ifMatch, Map<String, String> body) throws Exception {
+        var request = patch("/api/v1/user")
+                .header("Authorization", "Bearer " + accessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private String signUp(String username) throws Exception {
+        String response = mockMvc.perform(post("/api/v1/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "username", username,
+                                "email", username + "@example.com",
+                                "password", "password"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("accessToken").asText();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.repositories.user;
+
+import com.example.demo.models.user.PatchedUser;
+import com.example.demo.models.user.UserField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Проверяет запрос, который строит {@link UserPatchRepositoryImpl}.
+ */
+class UserPatchRepositoryImplTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private UserPatchRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        repository = new UserPatchRepositoryImpl(jdbcTemplate);
+    }
+
+    @Test
+    void updatesOnlyPassedColumnsWithVersionCheck() {
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        values.put(UserField.PHONE_NUMBER, "+79000000000");
+        values.put(UserField.SURNAME, "Ivanov");
+
+        assertThat(repository.patchByUsername("ivanov_is", 7L, values)).isEmpty();
+
+        Query query = captureQuery();
+        assertThat(query.sql()).startsWith("UPDATE users SET surname = :surname, " +
+                "phone_number = :phone_number, version = version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP WHERE username = :username " +
+                "AND version = :version RETURNING ");
+        assertThat(query.parameters().getValue("username")).isEqualTo("ivanov_is");
+        assertThat(query.parameters().getValue("surname")).isEqualTo("Ivanov");
+        assertThat(query.parameters().getValue("phone_number")).isEqualTo("+79000000000");
+        assertThat(query.parameters().getValue("version")).isEqualTo(7L);
+    }
+
+    @Test
+    void skipsVersionCheckWithoutIfMatch() {
+        repository.patchByUsername("ivanov_is", null, Map.of(UserField.PHOTO, "photo.png"));
+
+        Query query = captureQuery();
+        assertThat(query.sql()).contains("WHERE username = :username RETURNING ");
+        assertThat(query.sql()).doesNotContain(":version");
+        assertThat(query.parameters().hasValue("version")).isFalse();
+    }
+
+    @Test
+    void passwordChangeAdvancesTokenEpoch() {
+        repository.patchByUsername("ivanov_is", 3L, Map.of(UserField.PASSWORD, "hash"));
+
+        Query query = captureQuery();
+        assertThat(query.sql()).startsWith("UPDATE users SET password = :password, " +
+                "token_epoch = token_epoch + 1, version = version + 1, ");
+        assertThat(query.parameters().getValue("password")).isEqualTo("hash");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Query captureQuery() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).query(sql.capture(), parameters.capture(),
+                (RowMapper<PatchedUser>) any(RowMapper.class));
+        return new Query(sql.getValue(), parameters.getValue());
+    }
+
+    private record Query(String sql, SqlParameterSource parameters) {
+    }
+}
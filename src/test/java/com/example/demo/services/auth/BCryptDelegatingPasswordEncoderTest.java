@@ -0,0 +1,56 @@
+package com.example.demo.services.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptDelegatingPasswordEncoderTest {
+
+    private static final String COST_10_HASH = new BCryptPasswordEncoder(10).encode("password");
+
+    private static final String COST_12_HASH = new BCryptPasswordEncoder(12).encode("password");
+
+    @Test
+    void strongerUnprefixedHashIsNotDowngraded() {
+        PasswordEncoder encoder = encoder(10);
+
+        assertThat(encoder.matches("password", COST_12_HASH)).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_12_HASH)).isFalse();
+        assertThat(encoder.upgradeEncoding("{bcrypt}" + COST_12_HASH)).isFalse();
+    }
+
+    @Test
+    void weakerUnprefixedHashIsUpgraded() {
+        PasswordEncoder encoder = encoder(12);
+
+        assertThat(encoder.matches("password", COST_10_HASH)).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_10_HASH)).isTrue();
+        assertThat(encoder.upgradeEncoding("{bcrypt}" + COST_10_HASH)).isTrue();
+    }
+
+    @Test
+    void hashWithSameCostIsKept() {
+        assertThat(encoder(10).upgradeEncoding(COST_10_HASH)).isFalse();
+    }
+
+    @Test
+    void otherAlgorithmsAreMovedToBCrypt() {
+        PasswordEncoder encoder = encoder(10);
+        String pbkdf2 = "{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode("password");
+
+        assertThat(encoder.matches("password", pbkdf2)).isTrue();
+        assertThat(encoder.upgradeEncoding(pbkdf2)).isTrue();
+    }
+
+    private static PasswordEncoder encoder(int cost) {
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(cost);
+        return new BCryptDelegatingPasswordEncoder("bcrypt", Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()), bcrypt);
+    }
+}
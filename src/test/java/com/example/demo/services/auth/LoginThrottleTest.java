@@ -0,0 +1,140 @@
+package com.example.demo.services.auth;
+
+import com.example.demo.exceptions.request.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private static final long INTERVAL = 1000;
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private Counter throttled;
+
+    private LoginThrottle.Limiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        throttled = new SimpleMeterRegistry().counter("auth.login.throttled");
+        limiter = new LoginThrottle.Limiter(3, INTERVAL, 100, throttled, clock::get);
+    }
+
+    @Test
+    void burstIsAllowedThenRejected() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+
+        assertThatThrownBy(() -> limiter.acquire("ivanov_is"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(throttled.count()).isEqualTo(1);
+    }
+
+    @Test
+    void retryAfterCoversTimeUntilNextToken() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+        advance(200);
+
+        assertThatThrownBy(() -> limiter.acquire("ivanov_is"))
+                .isInstanceOfSatisfying(TooManyRequestsException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(1));
+    }
+
+    @Test
+    void tokensAreRestoredOverTime() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+        advance(INTERVAL);
+
+        assertThatCode(() -> limiter.acquire("ivanov_is")).doesNotThrowAnyException();
+        assertThatThrownBy(() -> limiter.acquire("ivanov_is"))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        advance(3 * INTERVAL);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+
+        assertThatCode(() -> limiter.acquire("petrov_pp")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void checkDoesNotSpendTokens() {
+        for (int i = 0; i < 10; i++) {
+            limiter.check("ivanov_is");
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+
+        assertThatThrownBy(() -> limiter.check("ivanov_is"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void refundReturnsSpentToken() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("ivanov_is");
+        }
+        limiter.refund("ivanov_is");
+
+        assertThatCode(() -> limiter.acquire("ivanov_is")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successfulLoginsDoNotUseUpUsernameLimit() {
+        LoginThrottle throttle = new LoginThrottle(2, 60_000, 100, 1000, 100,
+                new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("ivanov_is", "10.0.0." + i);
+            throttle.succeeded("ivanov_is");
+        }
+        throttle.acquire("ivanov_is", "10.0.0.1");
+        throttle.acquire("ivanov_is", "10.0.0.2");
+
+        assertThatThrownBy(() -> throttle.acquire("ivanov_is", "10.0.0.3"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void rejectedUsernameDoesNotSpendAddressLimit() {
+        LoginThrottle throttle = new LoginThrottle(1, 60_000, 2, 60_000, 100,
+                new SimpleMeterRegistry());
+
+        throttle.acquire("ivanov_is", "10.0.0.1");
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> throttle.acquire("ivanov_is", "10.0.0.1"))
+                    .isInstanceOf(TooManyRequestsException.class);
+        }
+
+        assertThatCode(() -> throttle.acquire("petrov_pp", "10.0.0.1"))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> throttle.acquire("sidorov_sa", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
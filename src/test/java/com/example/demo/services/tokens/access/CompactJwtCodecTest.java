@@ -0,0 +1,192 @@
+package com.example.demo.services.tokens.access;
+
+import com.example.demo.exceptions.jwt.JwtAuthException;
+import com.example.demo.exceptions.jwt.JwtExpiredException;
+import com.example.demo.models.role.Role;
+import com.example.demo.models.token.AccessTokenClaims;
+import com.example.demo.models.token.TokenRejectionReason;
+import com.example.demo.models.token.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactJwtCodecTest {
+
+    private static final String SECRET = "9e7b0b2034692a4abb645975c747949fcb09846b5c8807c101a7872a4b1625df";
+
+    private static final String ROTATED_SECRET = "c2VjcmV0LWtleS1mb3ItdGVzdHMtdGhhdC1pcy1sb25nLWVub3VnaA==";
+
+    private JwtKeyRing keyRing;
+
+    private CompactJwtCodec codec;
+
+    private JwtParser jjwtParser;
+
+    private KeyPair ecKeyPair;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        ecKeyPair = generator.generateKeyPair();
+        String ecKey = "ec:ES256:"
+                + Base64.getEncoder().encodeToString(ecKeyPair.getPublic().getEncoded()) + ":"
+                + Base64.getEncoder().encodeToString(ecKeyPair.getPrivate().getEncoded());
+
+        keyRing = new JwtKeyRing(SECRET, "rotated:" + ROTATED_SECRET + "," + ecKey, "rotated");
+        codec = new CompactJwtCodec(keyRing);
+        jjwtParser = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
+    }
+
+    @Test
+    void encodedTokenIsAcceptedByJjwt() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode(keyRing.getActiveKey(),
+                claims("ivanov_is", 42L, Role.ROLE_ADMIN, 3, now, now + 60_000));
+
+        var jws = jjwtParser.parseClaimsJws(token);
+        Claims claims = jws.getBody();
+        assertThat(jws.getHeader().getKeyId()).isEqualTo("rotated");
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("HS256");
+        assertThat(claims.getSubject()).isEqualTo("ivanov_is");
+        assertThat(claims.get("id", Long.class)).isEqualTo(42L);
+        assertThat(claims.get("username", String.class)).isEqualTo("ivanov_is");
+        assertThat(claims.get("role", String.class)).isEqualTo("ROLE_ADMIN");
+        assertThat(claims.get("epoch", Integer.class)).isEqualTo(3);
+        assertThat(claims.get("perm", Long.class)).isEqualTo(Role.ROLE_ADMIN.getPermissions());
+        assertThat(claims.getIssuedAt().getTime()).isEqualTo(now / 1000 * 1000);
+        assertThat(claims.getExpiration().getTime()).isEqualTo((now + 60_000) / 1000 * 1000);
+    }
+
+    @Test
+    void decodesTokenIssuedByJjwt() {
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "rotated")
+                .claim("id", 7L)
+                .claim("username", "petrov_pp")
+                .claim("role", Role.ROLE_USER)
+                .claim("epoch", 5)
+                .setSubject("petrov_pp")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(keyRing.getKey("rotated").getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedToken verified = codec.decode(token);
+
+        assertThat(verified.getSubject()).isEqualTo("petrov_pp");
+        assertThat(verified.getId()).isEqualTo(7L);
+        assertThat(verified.getRole()).isEqualTo(Role.ROLE_USER);
+        assertThat(verified.getEpoch()).isEqualTo(5);
+        assertThat(verified.getPermissions()).isEqualTo(Role.ROLE_USER.getPermissions());
+        assertThat(verified.getExpiration().toEpochMilli()).isEqualTo((now + 60_000) / 1000 * 1000);
+    }
+
+    @Test
+    void decodesLegacyTokenWithoutKeyId() {
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
+                .setSubject("admin")
+                .setExpiration(new Date(now + 60_000))
+                .signWith(keyRing.getKey(JwtKeyRing.DEFAULT_KEY_ID).getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(codec.decode(token).getSubject()).isEqualTo("admin");
+    }
+
+    @Test
+    void roundTripsSpecialCharacters() {
+        long now = System.currentTimeMillis();
+        String username = "иван \"q\\uote\"\t/";
+        String token = codec.encode(keyRing.getActiveKey(), AccessTokenClaims.builder()
+                .subject(username)
+                .username(username)
+                .issuedAt(now)
+                .expiration(now + 60_000)
+                .build());
+
+        assertThat(codec.decode(token).getSubject()).isEqualTo(username);
+        assertThat(jjwtParser.parseClaimsJws(token).getBody().getSubject()).isEqualTo(username);
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode(keyRing.getActiveKey(),
+                claims("admin", 1L, Role.ROLE_ADMIN, 0, now, now + 60_000));
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> codec.decode(tampered))
+                .isInstanceOf(JwtAuthException.class)
+                .extracting("reason").isEqualTo(TokenRejectionReason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode(keyRing.getActiveKey(),
+                claims("admin", 1L, Role.ROLE_ADMIN, 0, now - 120_000, now - 60_000));
+
+        assertThatThrownBy(() -> codec.decode(token)).isInstanceOf(JwtExpiredException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokenBeforeCheckingSignature() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode(keyRing.getActiveKey(),
+                claims("admin", 1L, Role.ROLE_ADMIN, 0, now - 120_000, now - 60_000));
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "AAAA";
+
+        assertThatThrownBy(() -> codec.decode(forged)).isInstanceOf(JwtExpiredException.class);
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        for (String token : new String[]{"abc", "a.b.c.d", "!!.e30.abc", "e30..abc", "e30.e30."}) {
+            assertThatThrownBy(() -> codec.decode(token))
+                    .isInstanceOf(JwtAuthException.class)
+                    .extracting("reason").isEqualTo(TokenRejectionReason.MALFORMED);
+        }
+    }
+
+    @Test
+    void leavesAsymmetricTokensToJjwt() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "ec")
+                .setSubject("admin")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(ecKeyPair.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+
+        assertThat(codec.decode(token)).isNull();
+        assertThat(jjwtParser.parseClaimsJws(token).getBody().getSubject()).isEqualTo("admin");
+    }
+
+    private static AccessTokenClaims claims(String username, Long id, Role role, int epoch,
+                                            long issuedAt, long expiration) {
+        return AccessTokenClaims.builder()
+                .subject(username)
+                .id(id)
+                .username(username)
+                .role(role)
+                .permissions(role.getPermissions())
+                .epoch(epoch)
+                .issuedAt(issuedAt)
+                .expiration(expiration)
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.services.user;
+
+import com.example.demo.exceptions.user.VersionConflictException;
+import com.example.demo.models.role.Role;
+import com.example.demo.models.user.User;
+import com.example.demo.repositories.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Одновременно обновляет одного пользователя из многих потоков
+ * через PUT-сервисы контактов и детальной информации.
+ */
+@SpringBootTest(properties = {
+        "PROFILE_UPDATE_MAX_ATTEMPTS=100",
+        "TOKEN_EPOCH_REFRESH_INTERVAL=3600000"
+})
+class ConcurrentProfileUpdateTest {
+
+    private static final int THREADS = 8;
+
+    private static final int UPDATES_PER_THREAD = 20;
+
+    @Autowired
+    @Qualifier("userContactInfoService")
+    private UserService contactService;
+
+    @Autowired
+    @Qualifier("userDetailsInfoService")
+    private UserService detailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String username;
+
+    private long initialVersion;
+
+    @BeforeEach
+    void createUser() {
+        username = "race_" + UUID.randomUUID().toString().substring(0, 8);
+        User user = userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("password")
+                .role(Role.ROLE_USER)
+                .build());
+        initialVersion = user.getVersion();
+    }
+
+    @AfterEach
+    void deleteUser() {
+        detailsService.deleteUserByUsername(username);
+    }
+
+    @Test
+    void disjointFieldsAreMergedWithoutErrors() throws Exception {
+        List<Throwable> errors = hammer(THREADS, (thread, i) -> {
+            if (thread % 2 == 0) {
+                contactService.updateByUsername(username, User.builder()
+                        .phoneNumber("+7900" + thread + String.format("%04d", i)).build());
+            } else {
+                detailsService.updateByUsername(username, User.builder()
+                        .surname("Surname-" + thread + "-" + i).build());
+            }
+        });
+
+        assertThat(errors).isEmpty();
+        User user = userRepository.findByUsername(username);
+        assertThat(user.getPhoneNumber()).startsWith("+7900");
+        assertThat(user.getSurname()).startsWith("Surname-");
+        assertThat(user.getVersion())
+                .isEqualTo(initialVersion + (long) THREADS * UPDATES_PER_THREAD);
+    }
+
+    @Test
+    void overlappingFieldsAreReportedAsConflicts() throws Exception {
+        AtomicInteger saved = new AtomicInteger();
+        List<Throwable> errors = hammer(THREADS, (thread, i) -> {
+            detailsService.updateByUsername(username, User.builder()
+                    .firstname("Name-" + thread + "-" + i).build());
+            saved.incrementAndGet();
+        });
+
+        assertThat(errors).allMatch(VersionConflictException.class::isInstance);
+        assertThat(saved.get() + errors.size()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+        assertThat(userRepository.findByUsername(username).getVersion())
+                .isEqualTo(initialVersion + saved.get());
+    }
+
+    /**
+     * Запускает потоки одновременно и собирает ошибки всех обновлений.
+     */
+    private List<Throwable> hammer(int threads, Update update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Throwable>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Throwable> errors = new ArrayList<>();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    try {
+                        update.apply(thread, i);
+                    } catch (RuntimeException e) {
+                        errors.add(e);
+                    }
+                }
+                return errors;
+            }));
+        }
+        start.countDown();
+        List<Throwable> errors = new ArrayList<>();
+        for (Future<List<Throwable>> future : futures) {
+            errors.addAll(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        return errors;
+    }
+
+    @FunctionalInterface
+    private interface Update {
+        void apply(int thread, int iteration);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.services.user;
+
+import com.example.demo.dtos.UserContactDto;
+import com.example.demo.dtos.UserDetailsDto;
+import com.example.demo.dtos.UserDto;
+import com.example.demo.models.user.User;
+import com.example.demo.repositories.user.UserRepository;
+import com.example.demo.utils.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает чтение профиля через загрузку сущности и {@link UserMapper}
+ * с выборкой только нужных столбцов в DTO.
+ * <p>
+ * Запускается только явно: {@code ./gradlew test -Dbenchmark=true}
+ * (требует базу данных с тестовыми пользователями из {@code init.sql}).
+ * </p>
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProfileReadBenchmarkTest {
+
+    private static final String USERNAME = "ivanov_is";
+
+    private static final int WARMUP = 2_000;
+
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void projectionsReturnSameDataAsEntityPath() {
+        UserDto viaEntity = userMapper.userToUserDto(userRepository.findByUsername(USERNAME));
+        UserDto viaProjection = userRepository.findUserDtoByUsername(USERNAME).orElseThrow();
+        UserContactDto contact = userRepository.findContactByUsername(USERNAME).orElseThrow();
+        UserDetailsDto details = userRepository.findDetailsByUsername(USERNAME).orElseThrow();
+
+        assertThat(viaProjection).usingRecursiveComparison()
+                .ignoringFields("password")
+                .isEqualTo(viaEntity);
+        assertThat(contact.getEmail()).isEqualTo(viaEntity.getEmail());
+        assertThat(contact.getPhoneNumber()).isEqualTo(viaEntity.getPhoneNumber());
+        assertThat(details.getSurname()).isEqualTo(viaEntity.getSurname());
+        assertThat(details.getBirthDate()).isEqualTo(viaEntity.getBirthDate());
+    }
+
+    @Test
+    void compareEntityAndProjectionReads() {
+        long entity = measure(() -> {
+            User user = userRepository.findByUsername(USERNAME);
+            return userMapper.userToUserDto(user);
+        });
+        long profile = measure(() -> userRepository.findUserDtoByUsername(USERNAME));
+        long contact = measure(() -> userRepository.findContactByUsername(USERNAME));
+        long details = measure(() -> userRepository.findDetailsByUsername(USERNAME));
+
+        System.out.printf("Чтение профиля, мкс/операция: сущность + маппер %.1f, " +
+                        "профиль %.1f, контакты %.1f, детали %.1f%n",
+                entity / 1000.0 / ITERATIONS, profile / 1000.0 / ITERATIONS,
+                contact / 1000.0 / ITERATIONS, details / 1000.0 / ITERATIONS);
+    }
+
+    /**
+     * Каждое чтение выполняется в отдельной транзакции, как в запросе
+     * к контроллеру.
+     *
+     * @return суммарное время измеренных итераций, нс
+     */
+    private long measure(Supplier<?> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            transactionTemplate.execute(status -> read.get());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            transactionTemplate.execute(status -> read.get());
+        }
+        return System.nanoTime() - start;
+    }
+}
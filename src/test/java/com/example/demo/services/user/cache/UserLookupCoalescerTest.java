@@ -0,0 +1,67 @@
+package com.example.demo.services.user.cache;
+
+import com.example.demo.config.datasource.ReadYourWrites;
+import com.example.demo.dtos.UserDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserLookupCoalescerTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final UserLookupCoalescer lookups = new UserLookupCoalescer(5000, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void requestPinnedToPrimaryDoesNotJoinReplicaRead() throws Exception {
+        Future<Optional<UserDto>> replicaRead = executor.submit(() ->
+                lookups.profile("ivanov_is", username -> {
+                    entered.countDown();
+                    await(release);
+                    return Optional.of(profile("stale"));
+                }));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ReadYourWrites.pinPrimary();
+        Optional<UserDto> own = lookups.profile("ivanov_is", username -> Optional.of(profile("fresh")));
+
+        assertThat(own).map(UserDto::getSurname).contains("fresh");
+        release.countDown();
+        assertThat(replicaRead.get(5, TimeUnit.SECONDS)).map(UserDto::getSurname).contains("stale");
+    }
+
+    private static UserDto profile(String surname) {
+        UserDto user = new UserDto();
+        user.setUsername("ivanov_is");
+        user.setSurname(surname);
+        return user;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
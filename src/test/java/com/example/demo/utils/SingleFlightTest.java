@@ -0,0 +1,172 @@
+package com.example.demo.utils;
+
+import com.example.demo.exceptions.request.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = flight(5000);
+        Future<String> leader = executor.submit(() -> flight.execute("ivanov_is", blocking("value")));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> followers = joinFollowers(flight);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(1);
+    }
+
+    @Test
+    void everyWaiterGetsTheSameException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database is down");
+        SingleFlight<String, String> flight = flight(5000);
+        Future<String> leader = executor.submit(() -> flight.execute("ivanov_is", key -> {
+            blocking("value").apply(key);
+            throw failure;
+        }));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> followers = joinFollowers(flight);
+        release.countDown();
+
+        assertThat(causeOf(leader)).isSameAs(failure);
+        for (Future<String> follower : followers) {
+            assertThat(causeOf(follower)).isSameAs(failure);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void waiterGivesUpAfterTimeout() throws Exception {
+        SingleFlight<String, String> flight = flight(50);
+        executor.submit(() -> flight.execute("ivanov_is", blocking("value")));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> flight.execute("ivanov_is", key -> "own"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(count("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void forgetDetachesLoadInFlight() throws Exception {
+        SingleFlight<String, String> flight = flight(5000);
+        Future<String> stale = executor.submit(() -> flight.execute("ivanov_is", blocking("stale")));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        flight.forget("ivanov_is");
+
+        assertThat(flight.execute("ivanov_is", key -> "fresh")).isEqualTo("fresh");
+        assertThat(count("collapsed")).isZero();
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+    }
+
+    @Test
+    void completedLoadIsNotReused() {
+        SingleFlight<String, String> flight = flight(5000);
+
+        flight.execute("ivanov_is", key -> "first");
+
+        assertThat(flight.execute("ivanov_is", key -> "second")).isEqualTo("second");
+        assertThat(count("executed")).isEqualTo(2);
+    }
+
+    private SingleFlight<String, String> flight(long timeout) {
+        return new SingleFlight<>(timeout, meterRegistry, "user.lookups", "principal");
+    }
+
+    /**
+     * Загрузка, которая сообщает о начале и ждет разрешения завершиться.
+     */
+    private Function<String, String> blocking(String value) {
+        return key -> {
+            loads.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Запускает вызовы, которые присоединяются к идущей загрузке,
+     * и дожидается, пока все они начнут ждать.
+     */
+    private List<Future<String>> joinFollowers(SingleFlight<String, String> flight)
+            throws InterruptedException {
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> flight.execute("ivanov_is", key -> "own")));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("collapsed") < FOLLOWERS && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(count("collapsed")).isEqualTo(FOLLOWERS);
+        return followers;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("user.lookups").tag("result", result).counter().count();
+    }
+
+    private static Throwable causeOf(Future<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("Ожидалось исключение");
+    }
+}